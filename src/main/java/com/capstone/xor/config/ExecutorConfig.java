@@ -0,0 +1,52 @@
+package com.capstone.xor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    // S3 동시 전송 수 (복원 prefetch 등에서 공유)
+    @Value("${file.transfer.concurrency:8}")
+    private int transferConcurrency;
+
+    // 대용량 객체 하나를 나눠 보내는 part 동시 전송 수 (멀티파트 업로드, 범위 GET)
+    @Value("${file.transfer.part-concurrency:8}")
+    private int partConcurrency;
+
+    // 비동기 버전 작업(diff 계산) 동시 실행 수
+    @Value("${file.version-job.workers:2}")
+    private int versionJobWorkers;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3TransferExecutor() {
+        return newDaemonPool("s3-transfer-", transferConcurrency);
+    }
+
+    // s3TransferExecutor 작업 안에서 part를 기다려도 막히지 않도록 별도 풀 사용
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3PartExecutor() {
+        return newDaemonPool("s3-part-", partConcurrency);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService versionJobExecutor() {
+        return newDaemonPool("version-job-", versionJobWorkers);
+    }
+
+    private ExecutorService newDaemonPool(String namePrefix, int size) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(size, threadFactory);
+    }
+}
@@ -1,7 +1,9 @@
 package com.capstone.xor.controller;
 
 import com.capstone.xor.dto.FileMetaDTO;
+import com.capstone.xor.dto.FilePage;
 import com.capstone.xor.service.FileService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -11,7 +13,11 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -23,6 +29,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class FileController {
     private final FileService fileService;
+    private final ObjectMapper objectMapper;
 
     // 파일 업로드 엔드포인트
     @PostMapping("/users/{userId}/sync-folders/{folderId}/upload")
@@ -107,11 +114,54 @@ public class FileController {
         return ResponseEntity.ok(files);
     }
 
-    // 파일명으로 파일 검색
+    // 특정 사용자와 폴더의 파일 목록 페이지 조회 (after: 이전 응답의 nextCursor)
+    @GetMapping("/users/{userId}/sync-folders/{folderId}/files/page")
+    public ResponseEntity<FilePage> getFilesPage(
+            @PathVariable Long userId,
+            @PathVariable Long folderId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "200") int size,
+            Authentication authentication) {
+
+        // jwt 인증 검증
+        Long authenticatedUserId = (Long) authentication.getDetails();
+        if (!userId.equals(authenticatedUserId)) {
+            throw new AccessDeniedException("접근 권한이 없습니다.");
+        }
+
+        FilePage page = fileService.getFilesPage(userId, folderId, after, size);
+        return ResponseEntity.ok(page);
+    }
+
+    // 특정 사용자와 폴더의 파일 목록 스트리밍 (NDJSON, 한 줄에 파일 하나)
+    @GetMapping("/users/{userId}/sync-folders/{folderId}/files/stream")
+    public ResponseEntity<StreamingResponseBody> streamFiles(
+            @PathVariable Long userId,
+            @PathVariable Long folderId,
+            Authentication authentication) {
+
+        // jwt 인증 검증
+        Long authenticatedUserId = (Long) authentication.getDetails();
+        if (!userId.equals(authenticatedUserId)) {
+            throw new AccessDeniedException("접근 권한이 없습니다.");
+        }
+        // 응답을 쓰기 시작하기 전에 폴더 권한 확인
+        fileService.validateFolderAccess(userId, folderId);
+
+        StreamingResponseBody body = out -> fileService.streamFiles(userId, folderId, file -> writeLine(out, file));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // 파일명으로 파일 검색 (mode=prefix면 앞부분 일치, 기본은 부분 일치)
     @GetMapping("/users/{userId}/files/search")
     public ResponseEntity<List<FileMetaDTO>> searchFiles(
             @PathVariable Long userId,
             @RequestParam String keyword,
+            @RequestParam(defaultValue = "contains") String mode,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
             Authentication authentication) {
 
         // jwt인증 검증
@@ -120,7 +170,7 @@ public class FileController {
             throw new AccessDeniedException("접근 권한이 없습니다.");
         }
 
-        List<FileMetaDTO> files = fileService.searchFilesByName(userId, keyword);
+        List<FileMetaDTO> files = fileService.searchFilesByName(userId, keyword, "prefix".equalsIgnoreCase(mode), page, size);
         return ResponseEntity.ok(files);
     }
 
@@ -186,6 +236,16 @@ public class FileController {
         return ResponseEntity.ok(response);
     }
 
+    // NDJSON 한 줄 쓰기
+    private void writeLine(OutputStream out, FileMetaDTO file) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(file));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     // RFC 5987 규약에 따른 파일명 인코딩 메서드 추가
     private String encodeFilename(String filename) {
         // url 인코딩 처리
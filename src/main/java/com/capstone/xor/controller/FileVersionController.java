@@ -1,14 +1,15 @@
 package com.capstone.xor.controller;
 
-import org.springframework.core.io.Resource;
 import com.capstone.xor.dto.VersionDTO;
+import com.capstone.xor.dto.VersionJobDTO;
 import com.capstone.xor.entity.FileMeta;
 import com.capstone.xor.entity.VersionMetadata;
 import com.capstone.xor.exception.ResourceNotFoundException;
 import com.capstone.xor.repository.FileMetaRepository;
+import com.capstone.xor.repository.VersionJobRepository;
 import com.capstone.xor.repository.VersionMetadataRepository;
 import com.capstone.xor.service.DiffService;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,37 +17,75 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
 import java.util.List;
 
 @RestController
 @RequestMapping("/users/{userId}/sync-folders/{folderId}/files/{fileId}")
 public class FileVersionController {
 
+    // 버전 목록 한 페이지 기본/최대 버전 수
+    private static final int DEFAULT_VERSION_PAGE = 50;
+    private static final int MAX_VERSION_PAGE = 200;
+
     private final VersionMetadataRepository versionMetadataRepository;
     private final DiffService diffService;
     private final FileMetaRepository fileMetaRepository;
+    private final VersionJobRepository versionJobRepository;
 
     public FileVersionController(
             VersionMetadataRepository versionMetadataRepository,
             DiffService diffService,
-            FileMetaRepository fileMetaRepository) {
+            FileMetaRepository fileMetaRepository,
+            VersionJobRepository versionJobRepository) {
         this.versionMetadataRepository = versionMetadataRepository;
         this.diffService = diffService;
         this.fileMetaRepository = fileMetaRepository;
+        this.versionJobRepository = versionJobRepository;
     }
 
+    /**
+     * 버전 목록 조회 (버전 오름차순)
+     * afterVersion/size가 없으면 기존처럼 전체 목록을 반환하고, 하나라도 있으면 버전 번호 기준 keyset 페이지로 반환한다.
+     * 페이지는 행이 아니라 버전 번호 단위(최대 size개 버전)로 자르므로 한 버전의 파트별 행이 페이지 사이에서 나뉘지 않는다.
+     * 다음 페이지가 있으면 X-Next-After-Version 헤더에 다음 요청의 afterVersion 값을 담는다.
+     */
     @GetMapping("/versions")
     public ResponseEntity<List<VersionDTO>> getFileVersions(
             @PathVariable Long userId,
             @PathVariable Long folderId,
-            @PathVariable ("fileId") Long fileMetaId) {
+            @PathVariable ("fileId") Long fileMetaId,
+            @RequestParam(required = false) Integer afterVersion,
+            @RequestParam(required = false) Integer size) {
+
+        if (afterVersion == null && size == null) {
+            return ResponseEntity.ok(toVersionDTOs(versionMetadataRepository.findByFileMeta_IdOrderByVersionNumberAsc(fileMetaId)));
+        }
 
-        List<VersionMetadata> versions = versionMetadataRepository.findByFileMeta_IdOrderByVersionNumberAsc(fileMetaId);
+        int after = afterVersion == null ? 0 : afterVersion;
+        int pageSize = Math.max(1, Math.min(size == null ? DEFAULT_VERSION_PAGE : size, MAX_VERSION_PAGE));
+        // 다음 페이지 여부 확인용으로 한 개 더 조회
+        List<Integer> numbers = versionMetadataRepository.findVersionNumbersAfter(fileMetaId, after, PageRequest.of(0, pageSize + 1));
+        if (numbers.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        boolean hasNext = numbers.size() > pageSize;
+        int lastVersion = numbers.get(Math.min(numbers.size(), pageSize) - 1);
+        List<VersionMetadata> versions = versionMetadataRepository
+                .findByFileMeta_IdAndVersionNumberBetweenOrderByVersionNumberAscIdAsc(fileMetaId, numbers.get(0), lastVersion);
 
-        List<VersionDTO> result = versions.stream()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hasNext) {
+            response.header("X-Next-After-Version", String.valueOf(lastVersion));
+        }
+        return response.body(toVersionDTOs(versions));
+    }
+
+    private List<VersionDTO> toVersionDTOs(List<VersionMetadata> versions) {
+        return versions.stream()
                 .map(v -> VersionDTO.builder()
                         .versionId(v.getId())
                         .versionNumber(v.getVersionNumber())
@@ -55,12 +94,39 @@ public class FileVersionController {
                         .createdDate(v.getCreatedDate())
                         .build())
                 .toList();
+    }
+
+    // 비동기 버전 작업 상태 조회 (업로드 후 diff/버전 생성 진행 상황)
+    @GetMapping("/version-jobs")
+    public ResponseEntity<List<VersionJobDTO>> getVersionJobs(
+            @PathVariable Long userId,
+            @PathVariable Long folderId,
+            @PathVariable("fileId") Long fileMetaId) {
+
+        FileMeta fileMeta = fileMetaRepository.findById(fileMetaId)
+                .orElseThrow(() -> new ResourceNotFoundException("File Meta not found"));
+        if (!fileMeta.getUser().getId().equals(userId) ||
+                !fileMeta.getSyncFolder().getId().equals(folderId)) {
+            throw new AccessDeniedException("권한 없음");
+        }
+
+        List<VersionJobDTO> result = versionJobRepository.findByFileMeta_IdOrderByVersionNumberAsc(fileMetaId).stream()
+                .map(j -> VersionJobDTO.builder()
+                        .jobId(j.getId())
+                        .versionNumber(j.getVersionNumber())
+                        .status(j.getStatus())
+                        .attempts(j.getAttempts())
+                        .lastError(j.getLastError())
+                        .createdAt(j.getCreatedAt())
+                        .updatedAt(j.getUpdatedAt())
+                        .build())
+                .toList();
 
         return ResponseEntity.ok(result);
     }
 
     @GetMapping("/{version}")
-    public ResponseEntity<Resource> restoreFileVersion(
+    public ResponseEntity<StreamingResponseBody> restoreFileVersion(
             @PathVariable Long userId,
             @PathVariable Long folderId,
             @PathVariable("fileId") Long fileMetaId,
@@ -73,14 +139,16 @@ public class FileVersionController {
             throw new AccessDeniedException("권한 없음");
         }
 
-        File restoredZip = diffService.restoreFileToVersion(fileMetaId, version);
+        // 캐시에 없으면 복원하면서 바로 응답으로 스트리밍 (길이 미정)
+        DiffService.RestoreResult restored = diffService.restoreFileToVersion(fileMetaId, version);
 
-        Resource resource = new FileSystemResource(restoredZip);
         String fileName = fileMeta.getOriginalName() + "-v" + version + ".zip";
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .contentLength(restoredZip.length())
-                .body(resource);
+                .contentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (restored.contentLength() != null) {
+            response.contentLength(restored.contentLength());
+        }
+        return response.body(restored.body());
     }
 }
@@ -0,0 +1,22 @@
+package com.capstone.xor.controller;
+
+import com.capstone.xor.dto.RestoreCacheStats;
+import com.capstone.xor.util.RestoreCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/restore-cache")
+@RequiredArgsConstructor
+public class RestoreCacheController {
+    private final RestoreCache restoreCache;
+
+    // 버전 복원 캐시 적중/미스 통계 조회
+    @GetMapping("/stats")
+    public ResponseEntity<RestoreCacheStats> getStats() {
+        return ResponseEntity.ok(restoreCache.getStats());
+    }
+}
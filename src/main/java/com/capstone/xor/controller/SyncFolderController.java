@@ -1,9 +1,12 @@
 package com.capstone.xor.controller;
 
+import com.capstone.xor.dto.ChangeFeed;
+import com.capstone.xor.dto.MerkleNodeDTO;
 import com.capstone.xor.dto.SyncFolderResponse;
 import com.capstone.xor.dto.SyncRequest;
 import com.capstone.xor.dto.SyncResult;
 import com.capstone.xor.service.FileService;
+import com.capstone.xor.service.MerkleTreeService;
 import com.capstone.xor.service.SyncFolderService;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +25,7 @@ public class SyncFolderController {
 
     private final SyncFolderService syncFolderService;
     private final FileService fileService;
+    private final MerkleTreeService merkleTreeService;
 
     @PostMapping // 싱크 폴더 추가
     public ResponseEntity<SyncFolderResponse> saveSyncFolder(@PathVariable Long userId, @RequestBody SyncFolderRequest request, Authentication authentication) {
@@ -82,6 +86,57 @@ public class SyncFolderController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 증분 동기화 엔드포인트 - cursor 이후 생성/수정/삭제된 파일만 반환
+     * @param userId 사용자 ID
+     * @param folderId 폴더 ID
+     * @param since 마지막으로 받은 cursor (처음이면 0 또는 /sync 응답의 cursor)
+     * @param limit 최대 변경 기록 수
+     * @param authentication 인증 정보
+     * @return 변경 목록과 다음 cursor
+     */
+    @GetMapping("/{folderId}/changes")
+    public ResponseEntity<ChangeFeed> getChanges(
+            @PathVariable Long userId,
+            @PathVariable Long folderId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "1000") int limit,
+            Authentication authentication)
+    {
+        // jwt 인증 검증
+        Long authenticatedUserId = (Long) authentication.getDetails();
+        if (!userId.equals(authenticatedUserId)) {
+            throw new AccessDeniedException("접근 권한이 없습니다.");
+        }
+        ChangeFeed feed = fileService.getChangesSince(userId, folderId, since, limit);
+        return ResponseEntity.ok(feed);
+    }
+
+    /**
+     * 폴더 Merkle tree 노드 조회 - 노드 hash와 직속 자식의 hash 반환
+     * 클라이언트는 루트부터 비교해 hash가 다른 디렉터리로만 내려가며 변경된 파일을 찾는다.
+     * @param userId 사용자 ID
+     * @param folderId 폴더 ID
+     * @param path 조회할 디렉터리/파일 경로 (생략하면 루트)
+     * @param authentication 인증 정보
+     * @return 노드 정보
+     */
+    @GetMapping("/{folderId}/tree")
+    public ResponseEntity<MerkleNodeDTO> getTreeNode(
+            @PathVariable Long userId,
+            @PathVariable Long folderId,
+            @RequestParam(required = false) String path,
+            Authentication authentication)
+    {
+        // jwt 인증 검증
+        Long authenticatedUserId = (Long) authentication.getDetails();
+        if (!userId.equals(authenticatedUserId)) {
+            throw new AccessDeniedException("접근 권한이 없습니다.");
+        }
+        MerkleNodeDTO node = merkleTreeService.getNode(userId, folderId, path);
+        return ResponseEntity.ok(node);
+    }
+
     @Setter
     @Getter
     public static class SyncFolderRequest {
@@ -0,0 +1,14 @@
+package com.capstone.xor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ChangeFeed {
+    private List<FileChangeDTO> changes; // cursor 이후 변경 (파일별 마지막 변경만, seq 오름차순)
+    private long cursor; // 다음 요청에 since로 보낼 값
+    private boolean hasMore; // 아직 받지 않은 변경이 더 있으면 true
+}
@@ -12,6 +12,8 @@ public class DiffResult {
     private final InputStream inputStream;
     private final long size;
     private final String mimeType;
+    // true면 내용이 전체 파일이 아니라 이전 내용 기준 binary delta (S3 키 확장자 .delta)
+    private final boolean binaryDelta;
 
     // text diff용 생성자
     public DiffResult(String relativePath, String diffText) {
@@ -19,16 +21,26 @@ public class DiffResult {
         this.mimeType = "text/plain"; // application/xml 등으로 변경 가능
         this.inputStream = new ByteArrayInputStream(diffText.getBytes(StandardCharsets.UTF_8));
         this.size = diffText.getBytes(StandardCharsets.UTF_8).length;
+        this.binaryDelta = false;
     }
 
-    // 바이너리 diff용 생성자
+    // 바이너리 diff용 생성자 (전체 파일)
     public DiffResult(String relativePath, byte[] binaryData, String mimeType) {
+        this(relativePath, binaryData, mimeType, false);
+    }
+
+    // 바이너리 diff용 생성자
+    public DiffResult(String relativePath, byte[] binaryData, String mimeType, boolean binaryDelta) {
         this.relativePath = relativePath;
         this.mimeType = mimeType;
         this.inputStream = new ByteArrayInputStream(binaryData);
         this.size = binaryData.length;
+        this.binaryDelta = binaryDelta;
     }
 
     public InputStream toInputStream() { return inputStream; }
 
+    // S3 diff 객체 확장자
+    public String getKeyExtension() { return binaryDelta ? ".delta" : ".diff"; }
+
 }
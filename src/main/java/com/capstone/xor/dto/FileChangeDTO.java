@@ -0,0 +1,22 @@
+package com.capstone.xor.dto;
+
+import com.capstone.xor.entity.FileChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileChangeDTO {
+    private long seq; // 폴더 내 변경 순번
+    private Long fileId; // 파일 id
+    private String relativePath; // 동기화 폴더 내 파일 위치
+    private FileChangeType changeType; // CREATED, MODIFIED, DELETED
+    private String hash; // 변경 후 파일 해시(SHA-256)
+    private Long size; // 변경 후 파일 크기
+    private int version; // 변경 후 버전 번호
+    private String changedAt; // 변경 시간(ISO 8601)
+}
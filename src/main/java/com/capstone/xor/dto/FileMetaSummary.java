@@ -0,0 +1,18 @@
+package com.capstone.xor.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 파일 목록 조회용 projection (연관 엔티티를 건드리지 않고 files 테이블 컬럼만 읽음)
+ */
+public record FileMetaSummary(
+        Long fileId,
+        String originalName,
+        String relativePath,
+        Long size,
+        String hash,
+        String mimeType,
+        LocalDateTime createdAt,
+        LocalDateTime lastModified,
+        LocalDateTime lastSyncTime) {
+}
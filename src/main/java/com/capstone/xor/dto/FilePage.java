@@ -0,0 +1,14 @@
+package com.capstone.xor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class FilePage {
+    private List<FileMetaDTO> files; // 이번 페이지 파일 목록 (id 오름차순)
+    private Long nextCursor; // 다음 페이지 요청에 after로 보낼 파일 id (마지막 페이지면 null)
+    private boolean hasMore; // 다음 페이지가 있으면 true
+}
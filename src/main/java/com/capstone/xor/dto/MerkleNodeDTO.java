@@ -0,0 +1,21 @@
+package com.capstone.xor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MerkleNodeDTO {
+    private String path; // 폴더 루트 기준 경로 (루트는 "")
+    private String name; // 경로의 마지막 이름
+    private boolean directory; // 디렉터리면 true
+    private String hash; // 파일은 파일 해시, 디렉터리는 하위 트리 해시
+    private Long fileId; // 파일 노드일 때 파일 id
+    private List<MerkleNodeDTO> children; // 직속 자식 (요청한 노드에만 채움)
+}
@@ -0,0 +1,18 @@
+package com.capstone.xor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Builder
+public class RestoreCacheStats {
+    private long hits; // 캐시 적중 횟수
+    private long misses; // 캐시 미스 횟수
+    private long evictions; // LRU로 제거된 항목 수
+    private double hitRate; // 적중률 (0~1)
+    private int entries; // 현재 캐시된 버전 수
+    private long sizeBytes; // 현재 캐시 디스크 사용량
+    private long maxBytes; // 캐시 최대 크기
+}
@@ -10,4 +10,5 @@ import java.util.List;
 public class SyncRequest {
     private List<FileMetaDTO> clientFiles; // 클라이언트가 서버에 보내는 현재 폴더 내 파일들의 메타데이터 목록
     private List<Long> deletedFileIds; // 클라이언트에서 삭제된 파일의 id 목록
+    private Boolean includeServerFiles; // false면 응답의 serverFiles 생략 (기본 true)
 }
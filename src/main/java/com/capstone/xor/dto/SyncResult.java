@@ -12,6 +12,7 @@ public class SyncResult {
     private List<String> filesToUpload; // 클라이언트가 서버에 업로드해야 할 파일명
     private List<String> filesToDownload; // 클라이언트가 서버에서 다운로드해야 할 파일명
     private List<String> conflictFiles; // 충돌난 파일명
+    private long cursor; // 이 목록 기준 변경 순번 (이후 변경은 /changes?since=cursor 로 조회)
 
 }
 
@@ -0,0 +1,23 @@
+package com.capstone.xor.dto;
+
+import com.capstone.xor.entity.VersionJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VersionJobDTO {
+    private Long jobId; // VersionJob의 id
+    private int versionNumber; // 생성할 버전 번호
+    private VersionJobStatus status; // PENDING, RUNNING, DONE, FAILED
+    private int attempts; // 실행 시도 횟수
+    private String lastError; // 마지막 실패 사유
+    private LocalDateTime createdAt; // 등록 일시
+    private LocalDateTime updatedAt; // 마지막 상태 변경 일시
+}
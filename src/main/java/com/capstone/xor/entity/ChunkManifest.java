@@ -0,0 +1,31 @@
+package com.capstone.xor.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 청크 참조 수에 반영된 manifest
+ * 청크 참조 증가와 같은 트랜잭션에서 기록되므로, 여기 있는 manifest만 삭제 시 참조 수를 줄인다.
+ * (롤백된 업로드가 남긴 manifest 객체는 참조 수에 포함되지 않음)
+ */
+@Entity
+@Table(name = "chunk_manifests")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ChunkManifest {
+
+    @Id
+    @Column(name = "manifest_key", length = 700)
+    private String manifestKey;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public ChunkManifest(String manifestKey) {
+        this.manifestKey = manifestKey;
+    }
+}
@@ -0,0 +1,28 @@
+package com.capstone.xor.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 공유 청크(chunks/ab/abcd...)의 참조 수
+ * 청크를 가리키는 manifest 수를 세며, 0이 된 청크는 ChunkGarbageCollector가 S3와 DB에서 함께 삭제한다.
+ * 행이 없는 청크는 새로 업로드해야 하는 청크로 본다.
+ */
+@Entity
+@Table(name = "chunk_refs",
+        indexes = @Index(name = "idx_chunk_refs_ref_count", columnList = "ref_count"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ChunkReference {
+
+    // 청크 SHA-256 (hex)
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+}
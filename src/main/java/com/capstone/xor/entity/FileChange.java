@@ -0,0 +1,63 @@
+package com.capstone.xor.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * 싱크 폴더 변경 기록 (증분 동기화용)
+ * seq는 폴더별로 1씩 증가하며, 클라이언트는 마지막으로 받은 seq를 cursor로 보내 이후 변경만 받는다.
+ * 삭제된 파일의 기록도 남아야 하므로 FileMeta와는 FK 없이 ID만 보관한다.
+ */
+@Entity
+@Table(name = "file_changes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_file_changes_folder_seq", columnNames = {"sync_folder_id", "seq"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sync_folder_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private SyncFolder syncFolder;
+
+    // 폴더 내 변경 순번 (cursor)
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(nullable = false)
+    private Long fileId;
+
+    // FileMetaDTO.relativePath와 같은 형식
+    @Column(length = 512)
+    private String relativePath;
+
+    // 스키마(Flyway)는 VARCHAR 컬럼이므로 MySQL 네이티브 ENUM 대신 문자열 타입으로 매핑
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false)
+    private FileChangeType changeType;
+
+    // 변경 후 파일 해시/크기/버전 (삭제면 삭제 직전 값)
+    @Column(length = 64)
+    private String hash;
+
+    private Long size;
+
+    private int version;
+
+    @Builder.Default
+    private LocalDateTime changedAt = LocalDateTime.now();
+}
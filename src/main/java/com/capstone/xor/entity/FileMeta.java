@@ -8,14 +8,22 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "files")
+@Table(name = "files",
+        uniqueConstraints = @UniqueConstraint(name = "uk_files_folder_relative_path", columnNames = {"sync_folder_id", "relative_path"}),
+        indexes = {
+                @Index(name = "idx_files_user_folder_name", columnList = "user_id, sync_folder_id, original_name"),
+                @Index(name = "idx_files_user_folder_s3_key", columnList = "user_id, sync_folder_id, s3_key")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
 public class FileMeta {
 
+    // 배치 insert가 가능하도록 IDENTITY 대신 id 테이블 pooled 할당 사용
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "files_id")
+    @TableGenerator(name = "files_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "files", allocationSize = 50)
     private Long id;
 
     // 사용자가 올린 파일명
@@ -26,6 +34,14 @@ public class FileMeta {
     @Column(length = 512)
     private String s3Key;
 
+    // 동기화 폴더 내 상대 경로 (s3Key에서 폴더 prefix를 뺀 값, 목록/동기화 조회용)
+    @Column(name = "relative_path", length = 512, nullable = false)
+    private String relativePath;
+
+    // 청크 저장 모드일 때 최신 내용의 chunk manifest S3 키 (null이면 s3Key에 전체 객체가 있음)
+    @Column(length = 512)
+    private String manifestKey;
+
     // 파일 크기
     private Long size;
 
@@ -0,0 +1,42 @@
+package com.capstone.xor.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * 파일 검색 색인 항목 (파일당 1개)
+ * 검색 대상은 사용자가 보는 경로("디렉터리/파일명")를 소문자로 바꾼 값이며, S3 키의 latest 등은 포함하지 않는다.
+ * 파일이 삭제되면 DB에서 함께 삭제된다.
+ */
+@Entity
+@Table(name = "file_search_entries",
+        indexes = @Index(name = "idx_file_search_entries_user_path", columnList = "user_id, path_lower"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class FileSearchEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "file_id", nullable = false, unique = true)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private FileMeta fileMeta;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // 소문자 파일명 (prefix 검색용)
+    @Column(nullable = false)
+    private String nameLower;
+
+    // 소문자 "디렉터리/파일명"
+    @Column(name = "path_lower", nullable = false, length = 512)
+    private String pathLower;
+}
@@ -0,0 +1,39 @@
+package com.capstone.xor.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * 파일 검색 n-gram (검색 경로의 각 위치에서 시작하는 최대 3글자)
+ * 끝부분의 1~2글자 gram도 저장하므로 짧은 검색어는 gram prefix 조회로, 긴 검색어는 trigram 교집합으로 후보를 찾는다.
+ */
+@Entity
+@Table(name = "file_search_grams",
+        indexes = @Index(name = "idx_file_search_grams_user_gram", columnList = "user_id, gram, entry_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class FileSearchGram {
+
+    // 색인 gram은 파일당 수십~수백 행이 한 번에 들어가므로 배치 insert용 pooled id 할당
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "file_search_grams_id")
+    @TableGenerator(name = "file_search_grams_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "file_search_grams", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "entry_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private FileSearchEntry entry;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 3)
+    private String gram;
+}
@@ -0,0 +1,53 @@
+package com.capstone.xor.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * 싱크 폴더의 Merkle tree 노드 (디렉터리 또는 파일)
+ * 파일 노드의 hash는 FileMeta.hash, 디렉터리 노드의 hash는 직속 자식들의 (종류, 이름, hash)를 이름순으로 이은 SHA-256이다.
+ * 루트 디렉터리는 path가 ""이고 parentPath가 null이다.
+ */
+@Entity
+@Table(name = "merkle_nodes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_merkle_nodes_folder_path", columnNames = {"sync_folder_id", "path"}),
+        indexes = @Index(name = "idx_merkle_nodes_folder_parent", columnList = "sync_folder_id, parent_path"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class MerkleNode {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sync_folder_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private SyncFolder syncFolder;
+
+    // 폴더 루트 기준 경로 ("a/b", 루트는 "")
+    @Column(nullable = false, length = 512)
+    private String path;
+
+    // 상위 디렉터리 경로 (루트면 null)
+    @Column(name = "parent_path", length = 512)
+    private String parentPath;
+
+    // 경로의 마지막 이름
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private boolean directory;
+
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    // 파일 노드일 때 FileMeta id
+    private Long fileId;
+}
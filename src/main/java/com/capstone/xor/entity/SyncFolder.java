@@ -6,6 +6,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@Table(name = "sync_folder",
+        indexes = @Index(name = "idx_sync_folder_user_path", columnList = "user_id, folder_path"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,6 +24,10 @@ public class SyncFolder {
     @Column(nullable = false)
     private String folderPath;
 
+    // 마지막으로 발급한 변경 기록 순번 (FileChange.seq)
+    @Column(nullable = false)
+    private long changeSeq = 0;
+
     @Temporal(TemporalType.TIMESTAMP)
     private java.util.Date createdAt = new java.util.Date();
 
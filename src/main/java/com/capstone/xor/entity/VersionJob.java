@@ -0,0 +1,85 @@
+package com.capstone.xor.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * 비동기 버전 작업 (업로드 후 diff 계산/버전 저장)
+ * diff 기준(이전 내용)과 대상(새 내용)은 S3 객체 또는 chunk manifest로 보존되어 있어 어느 서버에서나 재시도할 수 있다.
+ */
+@Entity
+@Table(name = "version_jobs",
+        indexes = {
+                @Index(name = "idx_version_jobs_status_next_attempt", columnList = "status, next_attempt_at"),
+                @Index(name = "idx_version_jobs_file_version", columnList = "file_id, version_number")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VersionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "file_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private FileMeta fileMeta;
+
+    // 이 작업이 만드는 버전 번호
+    @Column(nullable = false)
+    private int versionNumber;
+
+    // 파일별 S3 baseKey
+    @Column(length = 2048, nullable = false)
+    private String fileBaseKey;
+
+    // 이전 내용 (sourceManifestKey가 있으면 청크에서 읽음)
+    @Column(length = 2048)
+    private String sourceKey;
+
+    @Column(length = 2048)
+    private String sourceManifestKey;
+
+    // 새 내용 (targetManifestKey가 있으면 청크에서 읽음)
+    @Column(length = 2048)
+    private String targetKey;
+
+    @Column(length = 2048)
+    private String targetManifestKey;
+
+    private String mimeType;
+
+    // 스키마(Flyway)는 VARCHAR 컬럼이므로 MySQL 네이티브 ENUM 대신 문자열 타입으로 매핑
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false)
+    private VersionJobStatus status;
+
+    // 실행 시도 횟수
+    @Builder.Default
+    private int attempts = 0;
+
+    // 마지막 실패 사유
+    @Column(length = 1000)
+    private String lastError;
+
+    // 이 시각 이후에 다시 실행 (재시도 대기)
+    @Builder.Default
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
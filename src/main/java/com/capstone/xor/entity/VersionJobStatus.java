@@ -0,0 +1,5 @@
+package com.capstone.xor.entity;
+
+public enum VersionJobStatus {
+    PENDING, RUNNING, DONE, FAILED
+}
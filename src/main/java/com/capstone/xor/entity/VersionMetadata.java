@@ -2,13 +2,17 @@ package com.capstone.xor.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "version_metadata")
+@Table(name = "version_metadata",
+        uniqueConstraints = @UniqueConstraint(name = "uk_version_metadata_file_version_key", columnNames = {"file_id", "version_number", "s3_key"}),
+        indexes = @Index(name = "idx_version_metadata_file_type_version", columnList = "file_id, version_type, version_number"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,8 +20,11 @@ import java.time.LocalDateTime;
 @Builder
 public class VersionMetadata {
 
+    // IDENTITY는 insert마다 키를 받아야 해서 JDBC 배치가 꺼지므로, id 테이블에서 50개씩 미리 할당
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "version_metadata_id")
+    @TableGenerator(name = "version_metadata_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "version_metadata", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -28,12 +35,22 @@ public class VersionMetadata {
     @Column(nullable = false)
     private int versionNumber;
 
+    // 스키마(Flyway)는 VARCHAR 컬럼이므로 MySQL 네이티브 ENUM 대신 문자열 타입으로 매핑
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     private VersionType versionType; // SNAPSHOT or DIFF
 
-    @Column(length = 2048)
+    // 유니크 키(file_id, version_number, s3_key)가 InnoDB 인덱스 한도(3072바이트) 안에 들어가도록 700자
+    @Column(length = 700)
     private String s3Key;
 
+    // 청크 저장 모드로 저장된 snapshot의 chunk manifest S3 키 (null이면 s3Key에 전체 객체가 있음)
+    @Column(length = 2048)
+    private String manifestKey;
+
+    // 저장된 객체 크기 (diff 또는 snapshot 바이트 수, 체크포인트 판단에 사용)
+    private Long size;
+
     @Builder.Default
     private LocalDateTime createdDate = LocalDateTime.now();
 
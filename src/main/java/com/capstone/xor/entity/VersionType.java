@@ -1,5 +1,5 @@
 package com.capstone.xor.entity;
 
 public enum VersionType {
-    SNAPSHOT, DIFF
+    SNAPSHOT, DIFF, REVERSE_DIFF
 }
@@ -0,0 +1,25 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.ChunkManifest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ChunkManifestRepository extends JpaRepository<ChunkManifest, String> {
+
+    // prefix(파일 또는 폴더) 아래의 manifest 키, pattern은 ESCAPE '!'로 이스케이프된 LIKE 패턴
+    @Query("SELECT m.manifestKey FROM ChunkManifest m WHERE m.manifestKey LIKE :pattern ESCAPE '!'")
+    List<String> findKeysByPattern(@Param("pattern") String pattern);
+
+    // 파일/버전/버전 작업이 참조하지만 참조 수에 반영되지 않은 manifest (chunk_refs 도입 전에 저장된 manifest)
+    @Query(value = "SELECT k.manifest_key FROM (" +
+            "SELECT manifest_key FROM files " +
+            "UNION SELECT manifest_key FROM version_metadata " +
+            "UNION SELECT source_manifest_key FROM version_jobs " +
+            "UNION SELECT target_manifest_key FROM version_jobs) k " +
+            "WHERE k.manifest_key IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM chunk_manifests m WHERE m.manifest_key = k.manifest_key)", nativeQuery = true)
+    List<String> findUnregisteredManifestKeys();
+}
@@ -0,0 +1,39 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.ChunkReference;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ChunkReferenceRepository extends JpaRepository<ChunkReference, String> {
+
+    // 참조 수 증가 (행이 없으면 1로 생성), 행 잠금이 트랜잭션 끝까지 유지되어 같은 청크의 GC는 커밋까지 대기
+    @Modifying
+    @Query(value = "INSERT INTO chunk_refs (hash, ref_count) VALUES (:hash, 1) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int increment(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE ChunkReference c SET c.refCount = c.refCount - :count WHERE c.hash = :hash AND c.refCount >= :count")
+    int decrement(@Param("hash") String hash, @Param("count") long count);
+
+    // 현재 참조 수 (영속성 컨텍스트의 엔티티 대신 DB 값을 직접 읽음)
+    @Query("SELECT c.refCount FROM ChunkReference c WHERE c.hash = :hash")
+    Long findRefCount(@Param("hash") String hash);
+
+    // GC 대상 (행 잠금, 같은 청크를 다시 참조하는 업로드는 삭제가 커밋될 때까지 대기)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ChunkReference c WHERE c.hash IN :hashes AND c.refCount = 0 ORDER BY c.hash")
+    List<ChunkReference> findUnreferencedForUpdate(@Param("hashes") Collection<String> hashes);
+
+    // 커밋 직후 GC가 실패해 남은 참조 0 청크 (주기 GC용)
+    @Query("SELECT c.hash FROM ChunkReference c WHERE c.refCount = 0")
+    List<String> findUnreferenced(Pageable pageable);
+}
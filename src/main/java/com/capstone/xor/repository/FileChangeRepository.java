@@ -0,0 +1,13 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.FileChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface FileChangeRepository extends JpaRepository<FileChange, Long> {
+
+    // cursor 이후 변경 기록 (seq 오름차순)
+    List<FileChange> findBySyncFolder_IdAndSeqGreaterThanOrderBySeqAsc(Long syncFolderId, long seq, Pageable pageable);
+}
@@ -1,13 +1,21 @@
 package com.capstone.xor.repository;
 
+import com.capstone.xor.dto.FileMetaSummary;
 import com.capstone.xor.entity.FileMeta;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FileMetaRepository extends JpaRepository<FileMeta, Long> {
@@ -19,15 +27,49 @@ public interface FileMetaRepository extends JpaRepository<FileMeta, Long> {
     // 특정 사용자와 폴더의 파일 조회
     List<FileMeta> findByUserIdAndSyncFolderId(Long userId, Long syncFolderId);
 
-    // 파일명으로 검색
-    @Query("SELECT f FROM FileMeta f WHERE f.user.id = :userId AND f.s3Key LIKE %:keyword%")
-    List<FileMeta> findByUserIdAndS3KeyContaining(@Param("userId") Long userId, @Param("keyword") String keyword);
+    // 특정 폴더의 파일 목록 (DTO projection, user/syncFolder 지연 로딩 없음)
+    @Query("SELECT new com.capstone.xor.dto.FileMetaSummary(f.id, f.originalName, f.relativePath, f.size, f.hash, " +
+            "f.mimeType, f.createdAt, f.lastModified, f.lastSyncTime) FROM FileMeta f WHERE f.syncFolder.id = :syncFolderId")
+    List<FileMetaSummary> findSummariesBySyncFolderId(@Param("syncFolderId") Long syncFolderId);
+
+    // 특정 사용자와 폴더의 파일 목록 (DTO projection)
+    @Query("SELECT new com.capstone.xor.dto.FileMetaSummary(f.id, f.originalName, f.relativePath, f.size, f.hash, " +
+            "f.mimeType, f.createdAt, f.lastModified, f.lastSyncTime) FROM FileMeta f " +
+            "WHERE f.user.id = :userId AND f.syncFolder.id = :syncFolderId")
+    List<FileMetaSummary> findSummariesByUserIdAndSyncFolderId(@Param("userId") Long userId,
+                                                                @Param("syncFolderId") Long syncFolderId);
+
+    // 특정 사용자와 폴더의 파일 목록 한 페이지 (keyset: afterId보다 큰 id부터 오름차순)
+    @Query("SELECT new com.capstone.xor.dto.FileMetaSummary(f.id, f.originalName, f.relativePath, f.size, f.hash, " +
+            "f.mimeType, f.createdAt, f.lastModified, f.lastSyncTime) FROM FileMeta f " +
+            "WHERE f.user.id = :userId AND f.syncFolder.id = :syncFolderId AND f.id > :afterId ORDER BY f.id")
+    List<FileMetaSummary> findSummariesAfter(@Param("userId") Long userId,
+                                             @Param("syncFolderId") Long syncFolderId,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    // 특정 사용자와 폴더의 파일 목록 스트림 (MySQL 드라이버가 행 단위로 읽도록 fetch size 지정, 트랜잭션 안에서 닫아야 함)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.capstone.xor.dto.FileMetaSummary(f.id, f.originalName, f.relativePath, f.size, f.hash, " +
+            "f.mimeType, f.createdAt, f.lastModified, f.lastSyncTime) FROM FileMeta f " +
+            "WHERE f.user.id = :userId AND f.syncFolder.id = :syncFolderId ORDER BY f.id")
+    Stream<FileMetaSummary> streamSummaries(@Param("userId") Long userId, @Param("syncFolderId") Long syncFolderId);
 
     // 사용자 id, 폴더 id, 상대경로로 메타데이터 조회
     Optional<FileMeta> findByUserIdAndSyncFolderIdAndS3Key(Long userId, Long syncFolderId, String S3Key);
 
+    // 폴더 id, 상대경로로 메타데이터 조회 (sync_folder_id, relative_path 인덱스 사용)
+    Optional<FileMeta> findByUserIdAndSyncFolderIdAndRelativePath(Long userId, Long syncFolderId, String relativePath);
+
     // 폴더 아이디로 그 폴더의 모든 파일 삭제
     void deleteAllBySyncFolderId(Long syncFolderId);
 
     Optional<FileMeta> findByUserIdAndSyncFolderIdAndOriginalName(Long userId, Long syncFolderId, String originalName);
+
+    // 업로드 시 버전 갱신용 조회 (행 잠금, 같은 파일의 동시 업로드는 커밋까지 대기)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FileMeta f WHERE f.user.id = :userId AND f.syncFolder.id = :syncFolderId AND f.originalName = :originalName")
+    Optional<FileMeta> findForUpdate(@Param("userId") Long userId,
+                                     @Param("syncFolderId") Long syncFolderId,
+                                     @Param("originalName") String originalName);
 }
@@ -0,0 +1,38 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.FileSearchEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileSearchEntryRepository extends JpaRepository<FileSearchEntry, Long> {
+
+    Optional<FileSearchEntry> findByFileMeta_Id(Long fileId);
+
+    // 3글자 이상 검색어: 검색어의 trigram을 모두 가진 항목만 후보로 두고 LIKE로 확인
+    @Query("SELECT e.fileMeta.id FROM FileSearchEntry e WHERE e.userId = :userId AND e.id IN (" +
+            "SELECT g.entry.id FROM FileSearchGram g WHERE g.userId = :userId AND g.gram IN :grams " +
+            "GROUP BY g.entry.id HAVING COUNT(DISTINCT g.gram) = :gramCount) " +
+            "AND (e.pathLower LIKE :pattern ESCAPE '!' OR e.nameLower LIKE :pattern ESCAPE '!') " +
+            "ORDER BY e.pathLower")
+    List<Long> searchByGrams(@Param("userId") Long userId,
+                             @Param("grams") Collection<String> grams,
+                             @Param("gramCount") long gramCount,
+                             @Param("pattern") String pattern,
+                             Pageable pageable);
+
+    // 1~2글자 검색어: 검색어로 시작하는 gram을 가진 항목만 후보로 두고 LIKE로 확인
+    @Query("SELECT e.fileMeta.id FROM FileSearchEntry e WHERE e.userId = :userId AND e.id IN (" +
+            "SELECT g.entry.id FROM FileSearchGram g WHERE g.userId = :userId AND g.gram LIKE :gramPrefix ESCAPE '!') " +
+            "AND (e.pathLower LIKE :pattern ESCAPE '!' OR e.nameLower LIKE :pattern ESCAPE '!') " +
+            "ORDER BY e.pathLower")
+    List<Long> searchByGramPrefix(@Param("userId") Long userId,
+                                  @Param("gramPrefix") String gramPrefix,
+                                  @Param("pattern") String pattern,
+                                  Pageable pageable);
+}
@@ -0,0 +1,14 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.FileSearchGram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface FileSearchGramRepository extends JpaRepository<FileSearchGram, Long> {
+
+    @Modifying
+    @Query("DELETE FROM FileSearchGram g WHERE g.entry.id = :entryId")
+    int deleteByEntryId(@Param("entryId") Long entryId);
+}
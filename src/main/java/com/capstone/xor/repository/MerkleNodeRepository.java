@@ -0,0 +1,15 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.MerkleNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface MerkleNodeRepository extends JpaRepository<MerkleNode, Long> {
+
+    Optional<MerkleNode> findBySyncFolder_IdAndPath(Long syncFolderId, String path);
+
+    // 직속 자식 노드 (이름순)
+    List<MerkleNode> findBySyncFolder_IdAndParentPathOrderByNameAsc(Long syncFolderId, String parentPath);
+}
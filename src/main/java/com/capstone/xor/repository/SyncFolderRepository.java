@@ -3,6 +3,9 @@ package com.capstone.xor.repository;
 import com.capstone.xor.entity.SyncFolder;
 import com.capstone.xor.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -10,4 +13,13 @@ public interface SyncFolderRepository extends JpaRepository<SyncFolder, Long> {
 
     List<SyncFolder> findByUser(User user);
     Boolean existsByUserIdAndFolderPath(Long userId, String folderPath);
+
+    // 변경 기록 순번 증가 (행 잠금이 트랜잭션 끝까지 유지되므로 같은 폴더의 기록은 커밋 순서대로 seq를 받음)
+    @Modifying
+    @Query("UPDATE SyncFolder s SET s.changeSeq = s.changeSeq + 1 WHERE s.id = :id")
+    int incrementChangeSeq(@Param("id") Long id);
+
+    // 현재 변경 기록 순번 (영속성 컨텍스트의 엔티티 대신 DB 값을 직접 읽음)
+    @Query("SELECT s.changeSeq FROM SyncFolder s WHERE s.id = :id")
+    Long findChangeSeq(@Param("id") Long id);
 }
@@ -0,0 +1,39 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.VersionJob;
+import com.capstone.xor.entity.VersionJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface VersionJobRepository extends JpaRepository<VersionJob, Long> {
+
+    // 실행할 차례가 된 작업 (오래된 순)
+    List<VersionJob> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(VersionJobStatus status, LocalDateTime now, Pageable pageable);
+
+    // 파일별 작업 목록 (상태 조회용)
+    List<VersionJob> findByFileMeta_IdOrderByVersionNumberAsc(Long fileMetaId);
+
+    // 버전 구간 안에 아직 처리 중인 작업이 있는지 (복원 가능 여부 판단용)
+    boolean existsByFileMeta_IdAndVersionNumberBetweenAndStatusIn(Long fileMetaId, int from, int to,
+                                                                 Collection<VersionJobStatus> statuses);
+
+    // PENDING 작업 선점: 다른 워커가 먼저 가져갔으면 0을 반환
+    @Modifying
+    @Query("UPDATE VersionJob j SET j.status = com.capstone.xor.entity.VersionJobStatus.RUNNING, " +
+            "j.attempts = j.attempts + 1, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.status = com.capstone.xor.entity.VersionJobStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 서버가 중간에 종료되어 RUNNING으로 남은 작업을 다시 대기 상태로
+    @Modifying
+    @Query("UPDATE VersionJob j SET j.status = com.capstone.xor.entity.VersionJobStatus.PENDING, j.updatedAt = :now " +
+            "WHERE j.status = com.capstone.xor.entity.VersionJobStatus.RUNNING AND j.updatedAt < :staleBefore")
+    int requeueStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+}
@@ -3,7 +3,10 @@ package com.capstone.xor.repository;
 import com.capstone.xor.entity.FileMeta;
 import com.capstone.xor.entity.VersionMetadata;
 import com.capstone.xor.entity.VersionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,4 +22,37 @@ public interface VersionMetadataRepository extends JpaRepository<VersionMetadata
 //    List<VersionMetadata> findByFileMetaOrderByVersionNumberDesc(FileMeta fileMeta);
 
     List<VersionMetadata> findByFileMeta_IdOrderByVersionNumberAsc(Long fileMetaId);
+
+    // 버전 목록 keyset 페이지: afterVersion보다 큰 버전 번호 (한 버전에 파트별 행이 여러 개일 수 있어 번호 단위로 자름)
+    @Query("SELECT DISTINCT v.versionNumber FROM VersionMetadata v " +
+            "WHERE v.fileMeta.id = :fileMetaId AND v.versionNumber > :afterVersion ORDER BY v.versionNumber")
+    List<Integer> findVersionNumbersAfter(@Param("fileMetaId") Long fileMetaId,
+                                          @Param("afterVersion") int afterVersion,
+                                          Pageable pageable);
+
+    // 버전 구간 [fromVersion, toVersion]의 모든 행 (버전, id 오름차순)
+    List<VersionMetadata> findByFileMeta_IdAndVersionNumberBetweenOrderByVersionNumberAscIdAsc(
+            Long fileMetaId, int fromVersion, int toVersion);
+
+    // 대상 버전 이하에서 가장 가까운 snapshot (복원 시작점, FileMeta 함께 조회)
+    @Query("SELECT v FROM VersionMetadata v JOIN FETCH v.fileMeta " +
+            "WHERE v.fileMeta.id = :fileMetaId AND v.versionType = com.capstone.xor.entity.VersionType.SNAPSHOT " +
+            "AND v.versionNumber <= :targetVersion ORDER BY v.versionNumber DESC")
+    List<VersionMetadata> findNearestSnapshots(@Param("fileMetaId") Long fileMetaId,
+                                               @Param("targetVersion") int targetVersion,
+                                               Pageable pageable);
+
+    // 버전 구간 [fromVersion, toVersion]의 특정 타입 patch (버전 오름차순)
+    List<VersionMetadata> findByFileMeta_IdAndVersionTypeAndVersionNumberBetweenOrderByVersionNumberAsc(
+            Long fileMetaId, VersionType versionType, int fromVersion, int toVersion);
+
+    // 가장 최근 snapshot(체크포인트) 조회
+    Optional<VersionMetadata> findTopByFileMeta_IdAndVersionTypeOrderByVersionNumberDesc(Long fileMetaId, VersionType versionType);
+
+    // 특정 버전 이후 누적 diff 크기
+    @Query("SELECT COALESCE(SUM(v.size), 0) FROM VersionMetadata v " +
+            "WHERE v.fileMeta.id = :fileMetaId AND v.versionType = :versionType AND v.versionNumber > :afterVersion")
+    long sumSizeAfterVersion(@Param("fileMetaId") Long fileMetaId,
+                             @Param("versionType") VersionType versionType,
+                             @Param("afterVersion") int afterVersion);
 }
@@ -2,204 +2,388 @@ package com.capstone.xor.service;
 
 import com.capstone.xor.dto.DiffResult;
 import com.capstone.xor.entity.FileMeta;
+import com.capstone.xor.entity.VersionJobStatus;
 import com.capstone.xor.entity.VersionMetadata;
 import com.capstone.xor.entity.VersionType;
+import com.capstone.xor.repository.VersionJobRepository;
 import com.capstone.xor.repository.VersionMetadataRepository;
+import com.capstone.xor.util.BinaryDelta;
+import com.capstone.xor.util.ChunkStore;
 import com.capstone.xor.util.FileUtil;
+import com.capstone.xor.util.RestoreCache;
+import com.capstone.xor.util.RestoreWorkspace;
+import com.capstone.xor.util.TokenDiff;
 import lombok.RequiredArgsConstructor;
 import name.fraser.neil.plaintext.diff_match_patch;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipFile;
 
 @Service
 @RequiredArgsConstructor
 public class DiffService {
 
     private final VersionMetadataRepository versionMetadataRepository;
+    private final VersionJobRepository versionJobRepository;
     private final FileUtil fileUtil;
+    private final RestoreCache restoreCache;
+    private final ChunkStore chunkStore;
+    private final ExecutorService s3TransferExecutor;
 
     @Value("${cloud.aws.s3.bucket}")
     private String bucketName;
 
+    // 복원 시 이 크기보다 큰 파트만 임시 파일로 내림 (바이트)
+    @Value("${file.restore.spill-threshold-bytes:16777216}")
+    private long restoreSpillThreshold;
+
+    // 이 길이(문자 수) 이상인 텍스트 파트는 줄/XML 태그 단위 토큰 diff 후 바뀐 구간만 문자 단위로 비교 (0이면 사용 안 함)
+    @Value("${file.diff.token-mode-threshold-chars:65536}")
+    private int tokenModeThreshold;
+
+    /**
+     * 복원 결과: 응답 스트림에 쓸 본문과 길이 (캐시 미스로 스트리밍 복원하는 경우 길이는 null)
+     */
+    public record RestoreResult(StreamingResponseBody body, Long contentLength) {
+    }
+
     /**
      * 파일 버전 복원: 파일 타입(OOXML/텍스트)에 따라 자동 분기
+     * 캐시에 있으면 캐시 파일을 그대로 보내고, 없으면 메모리에서 복원하면서 응답으로 바로 스트리밍한다.
+     * 복원 계획(버전 검증)은 호출 시점에 수행하므로 잘못된 요청은 응답이 시작되기 전에 실패한다.
      */
-    public File restoreFileToVersion(Long fileMetaId, int targetVersion) {
-        // 원하는 버전까지의 versionmetadata조회 1번이 .snapshot
-        List<VersionMetadata> versions = versionMetadataRepository
-                .findByFileMeta_IdOrderByVersionNumberAsc(fileMetaId)
-                .stream()
-                .filter(v -> v.getVersionNumber() <= targetVersion)
-                .toList();
-        if (versions.isEmpty() || versions.get(0).getVersionType() != VersionType.SNAPSHOT) {
-            throw new IllegalStateException("스냅샷(.snapshot) 파일이 존재하지 않습니다.");
+    public RestoreResult restoreFileToVersion(Long fileMetaId, int targetVersion) {
+        // 이미 복원한 버전이면 캐시된 파일 그대로 사용
+        // (캐시에서 이미 연 스트림을 넘기므로 응답 중에 캐시에서 제거되어도 끝까지 전송됨)
+        RestoreCache.CachedRestore cached = restoreCache.open(fileMetaId, targetVersion);
+        if (cached != null) {
+            return new RestoreResult(out -> {
+                try (InputStream in = cached.stream()) {
+                    in.transferTo(out);
+                }
+            }, cached.size());
+        }
+
+        if (targetVersion < 1) {
+            throw new IllegalArgumentException("존재하지 않는 버전입니다: " + targetVersion);
         }
+        // 전체 이력 대신 대상 버전 이하의 가장 가까운 snapshot 한 행만 조회 (FileMeta는 fetch join)
+        VersionMetadata checkpoint = versionMetadataRepository
+                .findNearestSnapshots(fileMetaId, targetVersion, PageRequest.of(0, 1))
+                .stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException("스냅샷(.snapshot) 파일이 존재하지 않습니다."));
         // FileMeta에서 원본 파일명 얻기
-        FileMeta fileMeta = versions.get(0).getFileMeta();
+        FileMeta fileMeta = checkpoint.getFileMeta();
         String originalName = fileMeta.getOriginalName(); // ex) mydoc.docx
 
         // OOXML/텍스트 파일 자동 분기
-        if (isOOXMLFile(originalName)) {
-            return restoreOoxmlFileFromSnapshotAndDiffs(versions, originalName);
-        } else if (isTextFile(originalName)) {
-            String restorePath = System.getProperty("java.io.tmpdir") + File.separator + originalName;
-            return restorePlainTextFileFromSnapshotAndDiffs(versions, restorePath);
-        } else if (isBinaryFile(originalName)) {
-            throw new UnsupportedOperationException("바이너리 파일 복원은 지원하지 않습니다.");
-        } else {
+        boolean ooxml = isOOXMLFile(originalName);
+        if (!ooxml && !isTextFile(originalName)) {
+            if (isBinaryFile(originalName)) {
+                throw new UnsupportedOperationException("바이너리 파일 복원은 지원하지 않습니다.");
+            }
             throw new IllegalArgumentException("지원하지 않는 파일 형식: " + originalName);
         }
+
+        RestorePlan plan = planRestore(fileMeta, checkpoint, targetVersion);
+
+        StreamingResponseBody body = out -> {
+            // 클라이언트로 보내는 동시에 캐시 파일에도 기록
+            File staging = restoreCache.createStagingFile(originalName);
+            boolean completed = false;
+            try (OutputStream cacheOut = new BufferedOutputStream(new FileOutputStream(staging))) {
+                OutputStream tee = new TeeOutputStream(out, cacheOut);
+                if (ooxml) {
+                    restoreOoxmlTo(plan, tee);
+                } else {
+                    restorePlainTextTo(plan, tee);
+                }
+                tee.flush();
+                completed = true;
+            } finally {
+                if (completed) {
+                    restoreCache.put(fileMetaId, targetVersion, staging);
+                } else if (!staging.delete() && staging.exists()) {
+                    System.err.println("복원 임시 파일 삭제 실패: " + staging.getAbsolutePath());
+                }
+            }
+        };
+        return new RestoreResult(body, null);
+    }
+
+    /**
+     * 복원 계획: 시작 객체(snapshot 또는 latest)와 순서대로 적용할 patch 목록
+     * 시작 객체가 청크로 저장되어 있으면 baseManifestKey로 읽는다.
+     * 시작 객체가 덮어쓰이는 latest이면 expectedBaseHash(계획 시점 FileMeta.hash)로 읽은 내용을 검증한다.
+     */
+    private record RestorePlan(String baseKey, String baseManifestKey, String expectedBaseHash,
+                               List<VersionMetadata> patches) {
+    }
+
+    // latest에서 시작하는 계획 (청크 모드의 manifest는 버전별로 바뀌지 않으므로 검증 불필요)
+    private RestorePlan fromLatest(FileMeta fileMeta, List<VersionMetadata> patches) {
+        String expectedHash = fileMeta.getManifestKey() == null ? fileMeta.getHash() : null;
+        return new RestorePlan(fileMeta.getS3Key(), fileMeta.getManifestKey(), expectedHash, patches);
     }
+
     /**
-     * OOXML(압축 구조) 파일 복원
+     * 대상 버전까지의 복원 경로 선택
+     * - 정방향: 대상 버전 이하의 가장 가까운 snapshot(체크포인트)부터 DIFF를 버전 오름차순으로 적용
+     * - 역방향: latest(현재 버전)부터 REVERSE_DIFF를 버전 내림차순으로 적용
+     * 두 경로가 모두 가능하면 적용할 버전 수가 적은 쪽을 사용한다. patch는 필요한 버전 구간만 DB에서 조회한다.
      */
-    private File restoreOoxmlFileFromSnapshotAndDiffs(List<VersionMetadata> versions, String originalName) {
-        try {
-            File snapshotFile = fileUtil.downloadFromS3(versions.get(0).getS3Key());
-            File restoreDir = fileUtil.unzipToTempDir(snapshotFile);
+    private RestorePlan planRestore(FileMeta fileMeta, VersionMetadata checkpoint, int targetVersion) {
+        int currentVersion = fileMeta.getCurrentVersion();
+        if (targetVersion < 1 || targetVersion > currentVersion) {
+            throw new IllegalArgumentException("존재하지 않는 버전입니다: " + targetVersion);
+        }
+        // 최신 버전은 latest 객체 그대로 사용
+        if (targetVersion == currentVersion) {
+            return fromLatest(fileMeta, List.of());
+        }
+
+        // 정방향 경로 (snapshot 다음 버전부터 대상 버전까지의 DIFF)
+        Long fileMetaId = fileMeta.getId();
+        int from = checkpoint.getVersionNumber();
+        List<VersionMetadata> forward = null;
+        List<VersionMetadata> diffs = from < targetVersion
+                ? versionMetadataRepository.findByFileMeta_IdAndVersionTypeAndVersionNumberBetweenOrderByVersionNumberAsc(
+                        fileMetaId, VersionType.DIFF, from + 1, targetVersion)
+                : List.of();
+        if (coversVersions(diffs, from + 1, targetVersion)) {
+            forward = diffs;
+        }
 
-            for (int i = 1; i < versions.size(); i++) {
-                VersionMetadata version = versions.get(i);
-                File diffFile = fileUtil.downloadFromS3(version.getS3Key());
+        // 역방향 경로 (vN -> vN-1 patch를 최신 버전부터 내려가며 적용), 정방향보다 짧을 수 있을 때만 조회
+        if (forward == null || currentVersion - targetVersion <= targetVersion - from) {
+            List<VersionMetadata> reverse = new ArrayList<>(versionMetadataRepository
+                    .findByFileMeta_IdAndVersionTypeAndVersionNumberBetweenOrderByVersionNumberAsc(
+                            fileMetaId, VersionType.REVERSE_DIFF, targetVersion + 1, currentVersion));
+            Collections.reverse(reverse);
+            if (coversVersions(reverse, targetVersion + 1, currentVersion)) {
+                return fromLatest(fileMeta, reverse);
+            }
+        }
+        if (forward != null) {
+            return new RestorePlan(checkpoint.getS3Key(), checkpoint.getManifestKey(), null, forward);
+        }
+        // diff가 아직 비동기 버전 작업으로 만들어지는 중이면 서버 오류가 아니라 잠시 후 다시 시도할 요청 (409)
+        if (versionJobRepository.existsByFileMeta_IdAndVersionNumberBetweenAndStatusIn(fileMetaId, from + 1, currentVersion,
+                List.of(VersionJobStatus.PENDING, VersionJobStatus.RUNNING))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "버전 " + targetVersion + "은(는) 아직 버전 작업이 처리 중입니다. 잠시 후 다시 시도하세요.");
+        }
+        throw new IllegalStateException("버전 " + targetVersion + "을(를) 복원할 수 있는 snapshot/diff가 없습니다.");
+    }
+
+    // patch 목록에 from~to 모든 버전이 포함되어 있는지 확인
+    private boolean coversVersions(List<VersionMetadata> patches, int from, int to) {
+        Set<Integer> numbers = new HashSet<>();
+        for (VersionMetadata v : patches) {
+            numbers.add(v.getVersionNumber());
+        }
+        for (int n = from; n <= to; n++) {
+            if (!numbers.contains(n)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * OOXML(압축 구조) 파일 복원
+     * 시작 zip을 메모리 작업 공간으로 읽고, patch를 적용한 뒤 출력 스트림에 바로 압축한다.
+     */
+    private void restoreOoxmlTo(RestorePlan plan, OutputStream out) throws IOException {
+        CompletableFuture<RestoreWorkspace> base = CompletableFuture.supplyAsync(
+                () -> loadWorkspace(plan), s3TransferExecutor);
+        List<CompletableFuture<byte[]>> downloads = prefetchPatches(plan);
+
+        try (RestoreWorkspace workspace = await(base)) {
+            // 다운로드는 병렬로 진행되지만 patch는 버전 순서대로 적용
+            for (int i = 0; i < plan.patches().size(); i++) {
+                VersionMetadata version = plan.patches().get(i);
+                byte[] patch = await(downloads.get(i));
                 String relativePath = extractRelativePathFromDiffKey(version.getS3Key());
                 if (isTextFile(relativePath)) {
-                    applyTextPatchToFile(restoreDir, relativePath, diffFile);
+                    applyTextPatch(workspace, relativePath, patch);
+                } else if (version.getS3Key().endsWith(".delta")) {
+                    applyBinaryDelta(workspace, relativePath, patch);
                 } else {
-                    applyBinaryPatchToFile(restoreDir, relativePath, diffFile);
+                    // .diff 바이너리는 전체 파일
+                    workspace.write(relativePath, patch);
                 }
             }
-
-            File restoredZip = zipDirectoryToFile(restoreDir);
-            File restoredFile = new File(restoredZip.getParent(), originalName);
-            boolean renamed = restoredZip.renameTo(restoredFile);
-            if (!renamed) {
-                Files.copy(restoredZip.toPath(), restoredFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                restoredZip.delete();
-            }
-            fileUtil.deleteDirectoryRecursively(restoreDir);
-            return restoredFile;
-        } catch (IOException e) {
-            throw new UncheckedIOException("압축 해제 실패", e);
+            workspace.writeZip(out);
         }
     }
 
     /**
      * 텍스트 파일 복원 (patch 순차 적용)
      */
-    private File restorePlainTextFileFromSnapshotAndDiffs(List<VersionMetadata> versions, String restorePath) {
-        VersionMetadata snapshot = versions.get(0);
-        File snapshotFile = fileUtil.downloadFromS3(snapshot.getS3Key());
-        String restoredText = readFileToString(snapshotFile);
-
-        for (int i = 1; i < versions.size(); i++) {
-            VersionMetadata version = versions.get(i);
-            File diffFile = fileUtil.downloadFromS3(version.getS3Key());
-            String patchText = readFileToString(diffFile);
-            if (patchText == null || patchText.isEmpty()) continue;
+    private void restorePlainTextTo(RestorePlan plan, OutputStream out) throws IOException {
+        CompletableFuture<byte[]> base = CompletableFuture.supplyAsync(
+                () -> readBase(plan), s3TransferExecutor);
+        List<CompletableFuture<byte[]>> downloads = prefetchPatches(plan);
+
+        String restoredText = new String(await(base), StandardCharsets.UTF_8);
+        for (int i = 0; i < downloads.size(); i++) {
+            String patchText = new String(await(downloads.get(i)), StandardCharsets.UTF_8);
+            if (patchText.isEmpty()) continue;
+            // 적용 실패한 patch가 있으면 잘못된 내용이 응답/캐시에 남지 않도록 예외로 중단
+            restoredText = applyPatchText(restoredText, patchText, plan.patches().get(i).getS3Key());
+        }
+        out.write(restoredText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 시작 zip 객체를 S3 스트림에서 바로 작업 공간으로 읽음 (임시 파일 없음)
+    private RestoreWorkspace loadWorkspace(RestorePlan plan) {
+        MessageDigest digest = newSha256Digest();
+        try (InputStream in = new DigestInputStream(chunkStore.openContent(plan.baseKey(), plan.baseManifestKey()), digest)) {
+            RestoreWorkspace workspace = RestoreWorkspace.fromZip(in, restoreSpillThreshold);
             try {
-                diff_match_patch dmp = new diff_match_patch();
-
-                List<diff_match_patch.Patch> patchesList = dmp.patch_fromText(patchText);
-                LinkedList<diff_match_patch.Patch> patches = new LinkedList<>(patchesList);
-                Object[] results = dmp.patch_apply(patches, restoredText);
-                restoredText = (String) results[0];
-            } catch (Exception e) {
-                e.printStackTrace();
+                // 검증할 때만 zip 끝부분(central directory)까지 마저 읽어 전체 해시를 계산
+                if (plan.expectedBaseHash() != null) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+                verifyBase(plan, digest);
+            } catch (IOException | RuntimeException e) {
+                workspace.close();
+                throw e;
             }
+            return workspace;
+        } catch (IOException e) {
+            throw new UncheckedIOException("압축 해제 실패: " + plan.baseKey(), e);
         }
+    }
 
-        File restoredFile = new File(restorePath);
-        try {
-            Files.writeString(restoredFile.toPath(), restoredText);
+    // 텍스트 파일 시작 객체를 메모리로 읽음
+    private byte[] readBase(RestorePlan plan) {
+        MessageDigest digest = newSha256Digest();
+        try (InputStream in = new DigestInputStream(chunkStore.openContent(plan.baseKey(), plan.baseManifestKey()), digest)) {
+            byte[] content = in.readAllBytes();
+            verifyBase(plan, digest);
+            return content;
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException("S3 다운로드 실패: " + plan.baseKey(), e);
         }
-        return restoredFile;
     }
-    /**
-     * patch 파일의 S3 Key에서 상대경로 추출
-     */
-    private String extractRelativePathFromDiffKey(String diffKey) {
-        int idx = diffKey.indexOf(".diffs/");
-        String sub = diffKey.substring(idx + ".diffs/".length());
-        int slashIdx = sub.indexOf("/");
-        String rel = sub.substring(slashIdx + 1);
-        return rel.replaceAll("\\.diff$", "");
+
+    // latest가 계획 이후 새 업로드로 바뀌었으면 다른 버전에 patch를 적용하게 되므로 실패 처리 (응답 쓰기/캐시 저장 전)
+    private void verifyBase(RestorePlan plan, MessageDigest digest) {
+        if (plan.expectedBaseHash() == null) {
+            return;
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!plan.expectedBaseHash().equalsIgnoreCase(actual)) {
+            throw new IllegalStateException("복원 중 최신 파일이 변경되었습니다. 다시 시도해 주세요: " + plan.baseKey());
+        }
+    }
+
+    private MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 알고리즘을 찾을 수 없습니다.", e);
+        }
     }
 
     /**
-     * 디렉터리를 zip 파일로 압축
+     * 모든 patch 객체를 병렬로 미리 메모리에 다운로드 (동시 전송 수는 s3TransferExecutor 크기로 제한)
+     * 반환 목록은 plan.patches() 순서
      */
-    private File zipDirectoryToFile(File dir) {
-        try {
-            File zipFile = File.createTempFile("restore-", ".zip");
-            try (FileOutputStream fos = new FileOutputStream(zipFile);
-                 ZipOutputStream zos = new ZipOutputStream(fos)) {
-                zipDirRecursive(dir, dir, zos);
-            }
-            return zipFile;
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    private List<CompletableFuture<byte[]>> prefetchPatches(RestorePlan plan) {
+        List<CompletableFuture<byte[]>> downloads = new ArrayList<>();
+        for (VersionMetadata version : plan.patches()) {
+            String key = version.getS3Key();
+            downloads.add(CompletableFuture.supplyAsync(() -> fileUtil.downloadBytesFromS3(key), s3TransferExecutor));
         }
+        return downloads;
     }
 
-    private void zipDirRecursive(File rootDir, File currentDir, ZipOutputStream zos) throws IOException {
-        for (File file : Objects.requireNonNull(currentDir.listFiles())) {
-            String entryName = rootDir.toPath().relativize(file.toPath()).toString();
-            if (file.isDirectory()) {
-                zipDirRecursive(rootDir, file, zos);
-            } else {
-                zos.putNextEntry(new ZipEntry(entryName));
-                Files.copy(file.toPath(), zos);
-                zos.closeEntry();
+    private <T> T await(CompletableFuture<T> download) {
+        try {
+            return download.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw e;
         }
     }
 
     /**
-     * 텍스트 patch 적용 (디렉터리 내 파일)
+     * 텍스트 patch 적용 (작업 공간 내 파트)
      */
-    private void applyTextPatchToFile(File restoreDir, String relativePath, File diffFile) {
+    private void applyTextPatch(RestoreWorkspace workspace, String relativePath, byte[] patch) throws IOException {
+        byte[] current = workspace.read(relativePath);
+        String oldText = current != null ? new String(current, StandardCharsets.UTF_8) : "";
+        String patchText = new String(patch, StandardCharsets.UTF_8);
+
+        String restoredText = applyPatchText(oldText, patchText, relativePath);
+
+        workspace.write(relativePath, restoredText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * diff_match_patch patch 적용 후 모든 hunk의 성공 여부 확인
+     * 하나라도 적용되지 않으면(fuzzy 매칭 실패 포함) 예외를 던져 복원 결과가 캐시되지 않게 한다.
+     */
+    private String applyPatchText(String text, String patchText, String source) {
+        diff_match_patch dmp = new diff_match_patch();
+        LinkedList<diff_match_patch.Patch> patches;
         try {
-            File targetFile = new File(restoreDir, relativePath);
-            String oldText = targetFile.exists() ?
-                    Files.readString(targetFile.toPath(), StandardCharsets.UTF_8) : "";
-            String patchText = Files.readString(diffFile.toPath(), StandardCharsets.UTF_8);
-
-            diff_match_patch dmp = new diff_match_patch();
-            LinkedList<diff_match_patch.Patch> patches = new LinkedList<>(dmp.patch_fromText(patchText));
-            Object[] results = dmp.patch_apply(patches, oldText);
-            String restoredText = (String) results[0];
-
-            targetFile.getParentFile().mkdirs();
-            Files.writeString(targetFile.toPath(), restoredText, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+            patches = new LinkedList<>(dmp.patch_fromText(patchText));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("patch 형식이 잘못되었습니다: " + source, e);
+        }
+        Object[] results = dmp.patch_apply(patches, text);
+        boolean[] applied = (boolean[]) results[1];
+        for (int i = 0; i < applied.length; i++) {
+            if (!applied[i]) {
+                throw new IllegalStateException("patch 적용 실패 (" + (i + 1) + "/" + applied.length + "번째 hunk): " + source);
+            }
         }
+        return (String) results[0];
     }
 
     /**
-     * 바이너리 patch 적용 (디렉터리 내 파일)
+     * binary delta 적용 (작업 공간의 현재 내용이 delta 기준 내용)
      */
-    private void applyBinaryPatchToFile(File restoreDir, String relativePath, File diffFile) {
-        try {
-            File targetFile = new File(restoreDir, relativePath);
-            targetFile.getParentFile().mkdirs();
-            Files.copy(diffFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    private void applyBinaryDelta(RestoreWorkspace workspace, String relativePath, byte[] delta) throws IOException {
+        byte[] current = workspace.read(relativePath);
+        if (current == null) {
+            throw new IllegalStateException("binary delta 기준 파트가 없습니다: " + relativePath);
         }
+        workspace.write(relativePath, BinaryDelta.apply(current, delta));
+    }
+
+    /**
+     * patch 파일의 S3 Key에서 상대경로 추출
+     */
+    private String extractRelativePathFromDiffKey(String diffKey) {
+        // 정방향(.diffs/)과 역방향(.rdiffs/) diff 키 모두 처리
+        String marker = diffKey.contains("/.rdiffs/") ? "/.rdiffs/" : "/.diffs/";
+        int idx = diffKey.indexOf(marker);
+        String sub = diffKey.substring(idx + marker.length());
+        int slashIdx = sub.indexOf("/");
+        String rel = sub.substring(slashIdx + 1);
+        return rel.replaceAll("\\.(diff|delta)$", "");
     }
 
     // 파일 확장자 판별 함수들
@@ -271,18 +455,7 @@ public class DiffService {
                         continue;
                     }
                     if (!Objects.equals(prevText, newText)) {
-                        diff_match_patch dmp = new diff_match_patch();
-                        // patch_make에 null이 들어가지 않도록 ""(빈 문자열)로 대체
-                        String safePrevText = prevText == null ? "" : prevText;
-                        String safeNewText = newText == null ? "" : newText;
-
-                        LinkedList<diff_match_patch.Diff> diffs = dmp.diff_main(safePrevText, safeNewText);
-
-                        dmp.diff_cleanupSemantic(diffs);
-                        LinkedList<diff_match_patch.Patch> patches = dmp.patch_make(prevText, newText);
-                        String patchText = dmp.patch_toText(patches);
-
-                        results.add(new DiffResult(childRelativePath, patchText));
+                        results.add(createTextDiff(childRelativePath, prevText, newText));
                     }
                 }
                 // 바이너리 파일 처리
@@ -292,15 +465,125 @@ public class DiffService {
 
                     // 둘 다 null이면 (존재하지 않음) 무시, 둘 다 같으면 무시
                     if (!Arrays.equals(prevBytes, newBytes)) {
-                        // 변경 시 전체 파일을 diff로 저장
-                        String mimeType = getMimeTypeByExtension(name);
-                        results.add(new DiffResult(childRelativePath, newBytes != null ? newBytes : new byte[0], mimeType));
+                        results.add(createBinaryDiff(childRelativePath, prevBytes, newBytes));
                     }
                 }
             }
         }
     }
 
+    /**
+     * OOXML(zip) 두 개를 압축 해제 없이 엔트리 단위로 비교
+     * central directory의 CRC32/크기가 같은 엔트리는 건너뛰고, 달라진 엔트리만 메모리에서 inflate 한다.
+     */
+    public List<DiffResult> diffZipArchives(File prevZip, File newZip) {
+        List<DiffResult> results = new ArrayList<>();
+        try (ZipFile prev = new ZipFile(prevZip); ZipFile next = new ZipFile(newZip)) {
+            Set<String> seen = new HashSet<>();
+            Enumeration<? extends ZipEntry> newEntries = next.entries();
+            while (newEntries.hasMoreElements()) {
+                ZipEntry newEntry = newEntries.nextElement();
+                if (newEntry.isDirectory()) continue;
+                seen.add(newEntry.getName());
+                ZipEntry prevEntry = prev.getEntry(newEntry.getName());
+                if (prevEntry != null && isSameEntry(prevEntry, newEntry)) continue;
+                addZipEntryDiff(newEntry.getName(), prev, prevEntry, next, newEntry, results);
+            }
+            // 새 버전에서 삭제된 엔트리
+            Enumeration<? extends ZipEntry> prevEntries = prev.entries();
+            while (prevEntries.hasMoreElements()) {
+                ZipEntry prevEntry = prevEntries.nextElement();
+                if (prevEntry.isDirectory() || seen.contains(prevEntry.getName())) continue;
+                addZipEntryDiff(prevEntry.getName(), prev, prevEntry, next, null, results);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("zip 엔트리 비교 실패", e);
+        }
+        return results;
+    }
+
+    // central directory 정보만으로 동일 여부 판단 (CRC 또는 크기가 없으면 내용 비교로 넘김)
+    private boolean isSameEntry(ZipEntry prevEntry, ZipEntry newEntry) {
+        return prevEntry.getCrc() != -1 && prevEntry.getSize() != -1
+                && prevEntry.getCrc() == newEntry.getCrc()
+                && prevEntry.getSize() == newEntry.getSize();
+    }
+
+    private void addZipEntryDiff(String name, ZipFile prev, ZipEntry prevEntry, ZipFile next, ZipEntry newEntry,
+                                 List<DiffResult> results) throws IOException {
+        if (isTextFile(name)) {
+            String prevText = prevEntry != null ? new String(readZipEntry(prev, prevEntry), StandardCharsets.UTF_8) : null;
+            String newText = newEntry != null ? new String(readZipEntry(next, newEntry), StandardCharsets.UTF_8) : null;
+            if (!Objects.equals(prevText, newText)) {
+                results.add(createTextDiff(name, prevText, newText));
+            }
+        } else if (isBinaryFile(name)) {
+            byte[] prevBytes = prevEntry != null ? readZipEntry(prev, prevEntry) : null;
+            byte[] newBytes = newEntry != null ? readZipEntry(next, newEntry) : null;
+            if (!Arrays.equals(prevBytes, newBytes)) {
+                results.add(createBinaryDiff(name, prevBytes, newBytes));
+            }
+        }
+    }
+
+    private byte[] readZipEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        try (InputStream is = zipFile.getInputStream(entry)) {
+            return is.readAllBytes();
+        }
+    }
+
+    /**
+     * 텍스트 diff 생성 (한쪽이 없으면 빈 문자열 기준)
+     */
+    private DiffResult createTextDiff(String relativePath, String prevText, String newText) {
+        diff_match_patch dmp = new diff_match_patch();
+        // patch_make에 null이 들어가지 않도록 ""(빈 문자열)로 대체
+        String safePrevText = prevText == null ? "" : prevText;
+        String safeNewText = newText == null ? "" : newText;
+
+        // diff는 한 번만 계산하고 그 결과로 패치 생성 (patch_make(text1, text2)와 같은 정리 과정)
+        LinkedList<diff_match_patch.Diff> diffs = useTokenMode(safePrevText, safeNewText)
+                ? TokenDiff.diff(dmp, safePrevText, safeNewText, isXmlPart(relativePath))
+                : dmp.diff_main(safePrevText, safeNewText, true);
+        if (diffs.size() > 2) {
+            dmp.diff_cleanupSemantic(diffs);
+            dmp.diff_cleanupEfficiency(diffs);
+        }
+        LinkedList<diff_match_patch.Patch> patches = dmp.patch_make(safePrevText, diffs);
+        String patchText = dmp.patch_toText(patches);
+
+        return new DiffResult(relativePath, patchText);
+    }
+
+    // 큰 파트는 문자 단위 Myers가 Diff_Timeout에 걸리기 쉬우므로 토큰 단위로 비교
+    private boolean useTokenMode(String prevText, String newText) {
+        return tokenModeThreshold > 0 && Math.max(prevText.length(), newText.length()) >= tokenModeThreshold;
+    }
+
+    // OOXML 파트(xml, rels)는 태그 경계로, 나머지(csv, txt, json)는 줄 단위로 토큰화
+    private boolean isXmlPart(String relativePath) {
+        String lower = relativePath.toLowerCase();
+        return lower.endsWith(".xml") || lower.endsWith(".rels");
+    }
+
+    /**
+     * 바이너리 diff 생성
+     * 이전 내용이 있으면 copy/insert delta를 만들고, delta가 전체 파일보다 작을 때만 delta로 저장한다.
+     */
+    private DiffResult createBinaryDiff(String relativePath, byte[] prevBytes, byte[] newBytes) {
+        String mimeType = getMimeTypeByExtension(relativePath);
+        if (newBytes == null) {
+            return new DiffResult(relativePath, new byte[0], mimeType);
+        }
+        if (prevBytes != null && prevBytes.length > 0) {
+            byte[] delta = BinaryDelta.encode(prevBytes, newBytes);
+            if (delta.length < newBytes.length) {
+                return new DiffResult(relativePath, delta, "application/octet-stream", true);
+            }
+        }
+        return new DiffResult(relativePath, newBytes, mimeType);
+    }
+
     public String readFileToString(File file) {
         if (file == null) {
             System.out.println("[파일읽기] file == null");
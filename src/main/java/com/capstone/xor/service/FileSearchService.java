@@ -0,0 +1,114 @@
+package com.capstone.xor.service;
+
+import com.capstone.xor.entity.FileMeta;
+import com.capstone.xor.entity.FileSearchEntry;
+import com.capstone.xor.entity.FileSearchGram;
+import com.capstone.xor.repository.FileSearchEntryRepository;
+import com.capstone.xor.repository.FileSearchGramRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 파일명/경로 n-gram 검색 색인
+ * 검색어의 gram으로 (user_id, gram) 인덱스에서 후보 파일만 좁힌 뒤 LIKE로 확인하므로 사용자 전체 파일을 훑지 않는다.
+ * 파일이 생성/수정될 때 FileService가 색인을 갱신하고, 삭제는 DB cascade로 함께 지워진다.
+ */
+@Service
+@RequiredArgsConstructor
+public class FileSearchService {
+    private static final int GRAM = 3;
+
+    private final FileSearchEntryRepository fileSearchEntryRepository;
+    private final FileSearchGramRepository fileSearchGramRepository;
+
+    /**
+     * 파일 색인 추가/갱신 (경로가 그대로면 아무것도 하지 않음)
+     *
+     * @param fileMeta  색인할 파일 (id가 있어야 함)
+     * @param directory 파일이 있는 디렉터리 경로 (루트는 "")
+     */
+    @Transactional
+    public void index(FileMeta fileMeta, String directory) {
+        String nameLower = fileMeta.getOriginalName().toLowerCase(Locale.ROOT);
+        String pathLower = (directory == null || directory.isEmpty())
+                ? nameLower
+                : directory.toLowerCase(Locale.ROOT) + "/" + nameLower;
+
+        FileSearchEntry entry = fileSearchEntryRepository.findByFileMeta_Id(fileMeta.getId()).orElse(null);
+        if (entry != null && entry.getPathLower().equals(pathLower)) {
+            return;
+        }
+        if (entry == null) {
+            entry = new FileSearchEntry();
+            entry.setFileMeta(fileMeta);
+            entry.setUserId(fileMeta.getUser().getId());
+        } else {
+            fileSearchGramRepository.deleteByEntryId(entry.getId());
+        }
+        entry.setNameLower(nameLower);
+        entry.setPathLower(pathLower);
+        fileSearchEntryRepository.save(entry);
+
+        List<FileSearchGram> grams = new ArrayList<>();
+        for (String gram : gramsOf(pathLower)) {
+            FileSearchGram g = new FileSearchGram();
+            g.setEntry(entry);
+            g.setUserId(entry.getUserId());
+            g.setGram(gram);
+            grams.add(g);
+        }
+        fileSearchGramRepository.saveAll(grams);
+    }
+
+    /**
+     * 파일명/경로 검색 (대소문자 무시)
+     *
+     * @param userId  사용자 ID
+     * @param keyword 검색어
+     * @param prefix  true면 파일명 또는 경로가 검색어로 시작하는 파일만, false면 부분 일치
+     * @param page    페이지 번호 (0부터)
+     * @param size    페이지 크기
+     * @return 경로순으로 정렬된 파일 id 목록
+     */
+    @Transactional(readOnly = true)
+    public List<Long> search(Long userId, String keyword, boolean prefix, int page, int size) {
+        String term = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (term.isEmpty()) {
+            return List.of();
+        }
+        String escaped = escapeLike(term);
+        String pattern = prefix ? escaped + "%" : "%" + escaped + "%";
+        PageRequest pageable = PageRequest.of(page, size);
+
+        if (term.length() < GRAM) {
+            return fileSearchEntryRepository.searchByGramPrefix(userId, escaped + "%", pattern, pageable);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            grams.add(term.substring(i, i + GRAM));
+        }
+        return fileSearchEntryRepository.searchByGrams(userId, grams, grams.size(), pattern, pageable);
+    }
+
+    // 각 위치에서 시작하는 최대 3글자 gram (끝의 1~2글자 gram 포함)
+    private Set<String> gramsOf(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            grams.add(text.substring(i, Math.min(i + GRAM, text.length())));
+        }
+        return grams;
+    }
+
+    // LIKE 특수문자 이스케이프 (ESCAPE '!')
+    private String escapeLike(String term) {
+        return term.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
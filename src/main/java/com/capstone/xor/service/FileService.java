@@ -2,36 +2,57 @@ package com.capstone.xor.service;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
+import com.capstone.xor.dto.ChangeFeed;
 import com.capstone.xor.dto.DiffResult;
+import com.capstone.xor.dto.FileChangeDTO;
 import com.capstone.xor.dto.FileMetaDTO;
+import com.capstone.xor.dto.FileMetaSummary;
+import com.capstone.xor.dto.FilePage;
 import com.capstone.xor.dto.SyncRequest;
 import com.capstone.xor.dto.SyncResult;
 import com.capstone.xor.entity.*;
 import com.capstone.xor.exception.ResourceNotFoundException;
+import com.capstone.xor.repository.FileChangeRepository;
 import com.capstone.xor.repository.FileMetaRepository;
 import com.capstone.xor.repository.SyncFolderRepository;
 import com.capstone.xor.repository.UserRepository;
+import com.capstone.xor.repository.VersionJobRepository;
 import com.capstone.xor.repository.VersionMetadataRepository;
+import com.capstone.xor.util.ChunkStore;
 import com.capstone.xor.util.FileUtil;
+import com.capstone.xor.util.LatestFileCache;
+import com.capstone.xor.util.RestoreCache;
 import lombok.RequiredArgsConstructor;
 import org.joda.time.IllegalInstantException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.*;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -41,12 +62,64 @@ public class FileService {
     private final FileMetaRepository fileMetaRepository;
     private final UserRepository userRepository;
     private final VersionMetadataRepository versionMetadataRepository;
+    private final VersionJobRepository versionJobRepository;
+    private final FileChangeRepository fileChangeRepository;
     private final FileUtil fileUtil;
     private final DiffService diffService;
+    private final MerkleTreeService merkleTreeService;
+    private final FileSearchService fileSearchService;
+    private final LatestFileCache latestFileCache;
+    private final RestoreCache restoreCache;
+    private final ChunkStore chunkStore;
+    private final ExecutorService s3TransferExecutor;
+
+    // 변경 기록 조회 한 번에 돌려주는 최대 개수
+    private static final int MAX_CHANGE_PAGE = 5000;
+
+    // 파일 검색 한 페이지 최대 크기
+    private static final int MAX_SEARCH_PAGE = 200;
+
+    // 파일 목록 한 페이지 최대 크기
+    private static final int MAX_LIST_PAGE = 1000;
+
+    // 파일별 업로드 직렬화용 잠금 stripe
+    private final ReentrantLock[] uploadLocks = createUploadLocks(64);
 
     @Value("${cloud.aws.s3.bucket}")
     private String bucketName;
 
+    // OOXML 업데이트 시 압축 해제 없이 zip 엔트리 단위로 diff 계산
+    @Value("${file.diff.zip-streaming:true}")
+    private boolean zipStreamingDiff;
+
+    // 역방향 diff 저장 모드 (각 버전의 diff가 vN을 vN-1로 되돌림, 최근 버전 복원 비용 최소화)
+    @Value("${file.version.reverse-delta:false}")
+    private boolean reverseDelta;
+
+    // 체크포인트 snapshot 주기 (마지막 snapshot 이후 버전 수, 0이면 사용 안 함)
+    @Value("${file.checkpoint.interval:20}")
+    private int checkpointInterval;
+
+    // 마지막 snapshot 이후 누적 diff 크기 기준 (바이트, 0이면 사용 안 함)
+    @Value("${file.checkpoint.max-diff-bytes:52428800}")
+    private long checkpointMaxDiffBytes;
+
+    // content-defined chunk 저장 모드 (latest/snapshot을 전체 객체 대신 공유 청크 + manifest로 저장)
+    @Value("${file.chunking.enabled:false}")
+    private boolean chunkingEnabled;
+
+    // 업데이트 시 latest만 저장하고 응답, diff/버전 생성은 백그라운드 작업(VersionJobWorker)으로 처리
+    @Value("${file.version-job.async:false}")
+    private boolean asyncVersioning;
+
+    private static ReentrantLock[] createUploadLocks(int stripes) {
+        ReentrantLock[] locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
     /**
      * 사용자가 폴더에 접근 권한이 있는지 검증하는 메서드
      *
@@ -55,7 +128,7 @@ public class FileService {
      * @throws AccessDeniedException     접근 권한이 없을 경우 발생
      * @throws ResourceNotFoundException 폴더를 찾을 수 없을 경우 발생
      */
-    private void validateFolderAccess(Long userId, Long syncFolderId) {
+    public void validateFolderAccess(Long userId, Long syncFolderId) {
         SyncFolder syncFolder = syncFolderRepository.findById(syncFolderId)
                 .orElseThrow(() -> new ResourceNotFoundException("폴더를 찾을 수 없습니다: " + syncFolderId));
         // 사용자와 폴더의 소유자가 일치하는지 확인
@@ -82,62 +155,107 @@ public class FileService {
         String latestKey = baseKey + "/latest/" + fileName;
 
         // 최초 파일 S3 key (복원에 사용 될 최초 버전)
-        String snapshotKey = baseKey + "/.snapshot/" + fileName.replace("." + extension, "_v1." + extension);
-
-        // filemeta 조회
-        Optional<FileMeta> fileMetaOpt = fileMetaRepository.findByUserIdAndSyncFolderIdAndOriginalName(userId, syncFolderId, fileName);
+        String snapshotKey = snapshotKeyFor(baseKey, fileName, extension, 1);
 
         FileMeta fileMeta;
         Long fileId;
 
-        if (fileMetaOpt.isEmpty()) {
-            // 신규 파일 등록
-            fileMeta = new FileMeta();
-            fileMeta.setOriginalName(fileName);
-            fileMeta.setUser(userRepository.getReferenceById(userId));
-            fileMeta.setSyncFolder(syncFolderRepository.getReferenceById(syncFolderId));
-            fileMeta.setCurrentVersion(1);
-            fileMeta.setLastModified(LocalDateTime.now());
-            fileMeta.setLastSyncTime(LocalDateTime.now());
-            fileMeta.setSize(file.getSize());
-            fileMeta.setMimeType(file.getContentType());
-            try {
-                fileMeta.setHash(calculateFileHash(file.getInputStream()));
-            } catch (IOException e) {
-                throw new RuntimeException("파일 해시 계산 중 오류", e);
-            }
-            fileMetaRepository.save(fileMeta);
-            fileId = fileMeta.getId();
-
-            // 1. snapshot 저장 (최초 버전만)
-            try {
-                fileUtil.uploadToS3(snapshotKey, file);
-            } catch (IOException e) {
-                throw new RuntimeException("S3 snapshot 업로드 중 오류 발생", e);
-            }
+        // 업로드 파일을 로컬에 한 번만 저장하면서 해시도 같은 스트림에서 계산하고, 이후 단계는 모두 로컬 사본으로 처리
+        // (수신은 잠금 밖에서 하므로 같은 파일의 업로드끼리도 전송은 겹칠 수 있음)
+        File newFile;
+        String newHash;
+        MessageDigest digest = newSha256Digest();
+        try (InputStream is = new DigestInputStream(file.getInputStream(), digest)) {
+            newFile = fileUtil.saveToTempFile(is, extension);
+        } catch (IOException e) {
+            throw new RuntimeException("업로드 파일 저장 중 오류", e);
+        }
+        newHash = toHexString(digest.digest());
 
-            // 2. 최신 파일 위치에도 저장
-            try {
-                fileUtil.uploadToS3(latestKey, file);
-            } catch (IOException e) {
-                throw new RuntimeException("최신 파일 업로드 중 오류 발생", e);
-            }
+        // 같은 파일의 버전 생성은 직렬화: 서버 내에서는 stripe 잠금, 서버 간에는 FileMeta 행 잠금(SELECT ... FOR UPDATE)
+        lockFileUntilCompletion(userId, syncFolderId, fileName);
+        Optional<FileMeta> fileMetaOpt;
+        try {
+            fileMetaOpt = fileMetaRepository.findForUpdate(userId, syncFolderId, fileName);
+        } catch (PessimisticLockingFailureException e) {
+            deleteTempFile(newFile);
+            throw uploadLockConflict(fileName, e);
+        }
 
-            fileMeta.setS3Key(latestKey); // 최신 파일의 위치로 저장
-            fileMetaRepository.save(fileMeta);
+        // 내용이 그대로인 재업로드는 저장/diff 없이 현재 최신본을 그대로 반환
+        if (fileMetaOpt.isPresent() && newHash.equals(fileMetaOpt.get().getHash())) {
+            deleteTempFile(newFile);
+            System.out.println("[업로드] 내용 변경 없음 (해시 일치), 버전 유지: " + fileMetaOpt.get().getCurrentVersion());
+            return latestKey;
+        }
 
-            VersionMetadata versionMeta = VersionMetadata.builder()
-                    .fileMeta(fileMeta)
-                    .versionNumber(1)
-                    .versionType(VersionType.SNAPSHOT)
-                    .s3Key(snapshotKey)
-                    .createdDate(LocalDateTime.now())
-                    .build();
-            versionMetadataRepository.save(versionMeta);
+        if (fileMetaOpt.isEmpty()) {
+            try {
+                // 신규 파일 등록
+                fileMeta = new FileMeta();
+                fileMeta.setOriginalName(fileName);
+                fileMeta.setUser(userRepository.getReferenceById(userId));
+                fileMeta.setSyncFolder(syncFolderRepository.getReferenceById(syncFolderId));
+                fileMeta.setCurrentVersion(1);
+                fileMeta.setLastModified(LocalDateTime.now());
+                fileMeta.setLastSyncTime(LocalDateTime.now());
+                fileMeta.setSize(file.getSize());
+                fileMeta.setMimeType(file.getContentType());
+                fileMeta.setHash(newHash);
+                fileMeta.setS3Key(latestKey); // 최신 파일의 위치로 저장
+                fileMeta.setRelativePath(relativePathOf(userId, syncFolderId, latestKey));
+                // 청크 모드에서는 snapshot과 latest가 같은 manifest를 참조
+                String manifestKey = chunkingEnabled ? manifestKeyFor(baseKey, 1) : null;
+                fileMeta.setManifestKey(manifestKey);
+
+                // 잠글 행이 아직 없으므로 S3에 쓰기 전에 먼저 insert해서 행 잠금을 잡음
+                // 다른 서버가 같은 경로로 동시에 생성 중이면 유니크 키에서 기다렸다가 실패하므로, 아무것도 쓰지 않고 409로 돌려보냄
+                try {
+                    fileMetaRepository.saveAndFlush(fileMeta);
+                } catch (DataIntegrityViolationException e) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "같은 파일이 동시에 생성되었습니다. 다시 업로드하세요: " + fileName, e);
+                } catch (PessimisticLockingFailureException e) {
+                    // 없는 행을 FOR UPDATE로 조회하면 인덱스 gap 잠금이 걸려, 같은 폴더의 다른 신규 파일 insert와 교착될 수 있음
+                    throw uploadLockConflict(fileName, e);
+                }
+                fileId = fileMeta.getId();
 
-            System.out.println("[업로드] 신규 FileMeta 생성, fileId: " + fileId);
-            System.out.println("[업로드] 최초 버전 등록 완료");
-            return latestKey;
+                // 캐시로 이동되기 전에 크기 기록
+                long storedSize = newFile.length();
+                if (manifestKey != null) {
+                    // 1-2. 청크 모드에서는 manifest 하나만 저장
+                    chunkStore.store(manifestKey, newFile);
+                } else {
+                    // 1-2. snapshot(최초 버전)과 최신 파일을 동시에 업로드 (동시 전송 수는 s3TransferExecutor 크기로 제한)
+                    String contentType = file.getContentType();
+                    CompletableFuture<Void> snapshotUpload = CompletableFuture.runAsync(
+                            () -> fileUtil.uploadToS3(snapshotKey, newFile, contentType), s3TransferExecutor);
+                    CompletableFuture<Void> latestUpload = CompletableFuture.runAsync(
+                            () -> fileUtil.uploadToS3(latestKey, newFile, contentType), s3TransferExecutor);
+                    awaitAll(snapshotUpload, latestUpload);
+                }
+                latestFileCache.put(latestKey, newFile, newHash);
+
+                // 두 객체 저장이 끝난 뒤에 버전 기록 (S3 전송이 실패하면 트랜잭션 롤백으로 먼저 넣은 행도 사라짐)
+                VersionMetadata versionMeta = VersionMetadata.builder()
+                        .fileMeta(fileMeta)
+                        .versionNumber(1)
+                        .versionType(VersionType.SNAPSHOT)
+                        .s3Key(snapshotKey)
+                        .manifestKey(manifestKey)
+                        .size(storedSize)
+                        .createdDate(LocalDateTime.now())
+                        .build();
+                versionMetadataRepository.save(versionMeta);
+                recordChange(fileMeta, FileChangeType.CREATED);
+
+                System.out.println("[업로드] 신규 FileMeta 생성, fileId: " + fileId);
+                System.out.println("[업로드] 최초 버전 등록 완료");
+                return latestKey;
+            } finally {
+                deleteTempFile(newFile);
+            }
         } else {
             // 업데이트
             fileMeta = fileMetaOpt.get();
@@ -147,42 +265,140 @@ public class FileService {
             System.out.println("[업로드] S3 baseKey: " + baseKey);
 
             int newVersion = fileMeta.getCurrentVersion() + 1;
-            String tmpKey = baseKey + "/tmp/v" + newVersion + "." + extension;
-            System.out.println("[업데이트] 임시 업로드 tmpKey: " + tmpKey);
+            // 청크 모드에서는 새 버전 manifest 하나를 latest와 체크포인트 snapshot이 함께 참조
+            String newManifestKey = chunkingEnabled ? manifestKeyFor(baseKey, newVersion) : null;
             try {
-                // 1. 새 파일을 임시로 업로드
-                fileUtil.uploadToS3(tmpKey, file);
+                if (asyncVersioning) {
+                    // 비동기 모드: 이전/새 내용을 작업용으로 보존하고 latest만 교체한 뒤 diff는 백그라운드 작업으로 넘김
+                    enqueueVersionJob(fileMeta, baseKey, latestKey, newVersion, newFile, file.getContentType(), newManifestKey);
+                } else {
+                    // 1. 이전 버전은 로컬 latest 캐시에서, 새 파일은 업로드 스트림을 저장한 로컬 사본에서 읽음
+                    // (diff가 끝날 때까지 빌려 두어 다른 업로드의 캐시 교체/제거로 사본이 삭제되지 않게 함)
+                    try (LatestFileCache.Handle prev = latestFileCache.getOrDownload(latestKey, fileMeta.getManifestKey(), fileMeta.getHash())) {
+                        // 2-3. diff 계산 후 diff 또는 체크포인트 snapshot 저장
+                        storeVersion(fileMeta, baseKey, newVersion, prev.file(), newFile, file.getContentType(), newManifestKey);
+                    }
+
+                    // 4. diff 저장 성공 후 최신 파일 교체 (로컬 사본을 그대로 업로드하고 캐시에 보관)
+                    if (newManifestKey != null) {
+                        // 이전 버전과 겹치는 청크는 업로드되지 않음
+                        chunkStore.store(newManifestKey, newFile);
+                    } else {
+                        fileUtil.uploadToS3(latestKey, newFile, file.getContentType());
+                    }
+                }
+                latestFileCache.put(latestKey, newFile, newHash);
 
-                // 2. 최신 파일(이전 버전)과 새 파일로 diff 계산
-                File prevFile = fileUtil.downloadFromS3(latestKey);
-                File newFile = fileUtil.downloadFromS3(tmpKey);
+                // 5. fileMeta 갱신
+                fileMeta.setCurrentVersion(newVersion);
+                fileMeta.setS3Key(latestKey); // 최신 파일의 위치로 갱신
+                fileMeta.setRelativePath(relativePathOf(userId, syncFolderId, latestKey));
+                fileMeta.setManifestKey(newManifestKey);
+                fileMeta.setSize(file.getSize());
+                fileMeta.setMimeType(file.getContentType());
+                fileMeta.setHash(newHash);
+                fileMeta.setLastModified(LocalDateTime.now());
+                fileMeta.setLastSyncTime(LocalDateTime.now());
+                fileMetaRepository.save(fileMeta);
+                recordChange(fileMeta, FileChangeType.MODIFIED);
 
-                boolean isPrevOOXML = fileUtil.isOOXMLFile(prevFile) && fileUtil.isZipFile(prevFile);
-                boolean isNewOOXML  = fileUtil.isOOXMLFile(newFile)  && fileUtil.isZipFile(newFile);
+                System.out.println("[업데이트] 파일 메타데이터/버전메타데이터 갱신 완료");
+                return latestKey;
 
-                File prevUnzipDir;
-                File newUnzipDir;
+            } catch (IOException e) {
+                System.out.println("[업데이트][에러] S3 업로드/처리 중 오류: " + e.getMessage());
+                throw new RuntimeException("S3 업로드/처리 중 오류 발생", e);
+            } finally {
+                deleteTempFile(newFile);
+            }
+        }
+    }
 
+    /**
+     * 이전 버전과 새 버전 파일로 diff를 계산하고, 새 버전의 diff 또는 체크포인트 snapshot과 versionmetadata를 저장
+     * 동기 업로드와 비동기 버전 작업(VersionJobService)이 함께 사용한다. latest 교체와 fileMeta 갱신은 호출자 몫이다.
+     *
+     * @param fileMeta       파일 메타데이터
+     * @param baseKey        파일별 S3 baseKey
+     * @param newVersion     새로 생성할 버전 번호
+     * @param prevFile       이전 버전 내용 (로컬)
+     * @param newFile        새 버전 내용 (로컬)
+     * @param contentType    새 파일 MIME 타입
+     * @param newManifestKey 청크 모드일 때 새 버전 manifest 키 (없으면 null)
+     */
+    public void storeVersion(FileMeta fileMeta, String baseKey, int newVersion, File prevFile, File newFile,
+                             String contentType, String newManifestKey) throws IOException {
+        String fileName = fileMeta.getOriginalName();
+        String extension = getExtension(fileName);
+        File baseUnzipDir = null;
+        File targetUnzipDir = null;
+        try {
+            // 최신 파일(이전 버전)과 새 파일로 diff 계산
+            // 역방향 모드에서는 새 버전을 이전 버전으로 되돌리는 patch를 만든다
+            File diffBase = reverseDelta ? newFile : prevFile;
+            File diffTarget = reverseDelta ? prevFile : newFile;
+            boolean isPrevOOXML = fileUtil.isOOXMLFile(prevFile) && fileUtil.isZipFile(prevFile);
+            boolean isNewOOXML  = fileUtil.isOOXMLFile(newFile)  && fileUtil.isZipFile(newFile);
+
+            List<DiffResult> diffs;
+            if (isPrevOOXML && isNewOOXML && zipStreamingDiff) {
+                // 압축 해제 없이 zip 엔트리 단위로 비교
+                diffs = diffService.diffZipArchives(diffBase, diffTarget);
+            } else {
                 if (isPrevOOXML && isNewOOXML) {
-                    prevUnzipDir = fileUtil.unzipToTempDir(prevFile);
-                    newUnzipDir  = fileUtil.unzipToTempDir(newFile);
+                    baseUnzipDir = fileUtil.unzipToTempDir(diffBase);
+                    targetUnzipDir = fileUtil.unzipToTempDir(diffTarget);
                 } else if (!isPrevOOXML && !isNewOOXML) {
-                    prevUnzipDir = fileUtil.singleFileToTempDir(prevFile, fileName);
-                    newUnzipDir  = fileUtil.singleFileToTempDir(newFile, fileName);
+                    baseUnzipDir = fileUtil.singleFileToTempDir(diffBase, fileName);
+                    targetUnzipDir = fileUtil.singleFileToTempDir(diffTarget, fileName);
                 } else {
-                    fileUtil.deleteFromS3(tmpKey);
                     throw new RuntimeException("이전 버전과 새 버전의 파일 유형이 달라 비교할 수 없습니다.");
                 }
+                diffs = diffService.diffAllFiles(baseUnzipDir, targetUnzipDir);
+            }
+            if (diffs == null || diffs.isEmpty()) {
+                throw new RuntimeException("diff 계산 결과가 없습니다. 기존 파일을 유지합니다.");
+            }
 
-                List<DiffResult> diffs = diffService.diffAllFiles(prevUnzipDir, newUnzipDir);
-                if (diffs == null || diffs.isEmpty()) {
-                    fileUtil.deleteFromS3(tmpKey);
-                    throw new RuntimeException("diff 계산 결과가 없습니다. 기존 파일을 유지합니다.");
+            // 체크포인트 대상이면 snapshot 저장, 아니면 diff 파일 S3 저장 및 versionmetadata(diff) 생성
+            // versionmetadata는 모아서 한 번에 저장 (JDBC 배치로 한 번에 insert)
+            List<VersionMetadata> versionMetas = new ArrayList<>();
+            if (reverseDelta) {
+                // 역방향 diff: vN -> vN-1 patch, 최신본은 latest에 있으므로 체크포인트 불필요
+                for (DiffResult diff : diffs) {
+                    String diffKey = baseKey + String.format("/.rdiffs/v%d/%s%s", newVersion, diff.getRelativePath(), diff.getKeyExtension());
+                    fileUtil.uploadToS3(diffKey, diff.toInputStream(), diff.getSize(), diff.getMimeType());
+
+                    VersionMetadata versionMeta = VersionMetadata.builder()
+                            .fileMeta(fileMeta)
+                            .versionNumber(newVersion)
+                            .versionType(VersionType.REVERSE_DIFF)
+                            .s3Key(diffKey)
+                            .size(diff.getSize())
+                            .createdDate(LocalDateTime.now())
+                            .build();
+                    versionMetas.add(versionMeta);
+                }
+            } else if (shouldCheckpoint(fileMeta, newVersion, diffs)) {
+                String checkpointKey = snapshotKeyFor(baseKey, fileName, extension, newVersion);
+                if (newManifestKey == null) {
+                    fileUtil.uploadToS3(checkpointKey, newFile, contentType);
                 }
 
-                // 3. diff 파일 S3 저장, versionmetadata(diff) 생성
+                VersionMetadata versionMeta = VersionMetadata.builder()
+                        .fileMeta(fileMeta)
+                        .versionNumber(newVersion)
+                        .versionType(VersionType.SNAPSHOT)
+                        .s3Key(checkpointKey)
+                        .manifestKey(newManifestKey)
+                        .size(newFile.length())
+                        .createdDate(LocalDateTime.now())
+                        .build();
+                versionMetas.add(versionMeta);
+                System.out.println("[업데이트] 체크포인트 snapshot 저장: " + checkpointKey);
+            } else {
                 for (DiffResult diff : diffs) {
-                    String diffKey = baseKey + String.format("/.diffs/v%d/%s.diff", newVersion, diff.getRelativePath());
+                    String diffKey = baseKey + String.format("/.diffs/v%d/%s%s", newVersion, diff.getRelativePath(), diff.getKeyExtension());
                     fileUtil.uploadToS3(diffKey, diff.toInputStream(), diff.getSize(), diff.getMimeType());
 
                     VersionMetadata versionMeta = VersionMetadata.builder()
@@ -190,83 +406,200 @@ public class FileService {
                             .versionNumber(newVersion)
                             .versionType(VersionType.DIFF)
                             .s3Key(diffKey)
+                            .size(diff.getSize())
                             .createdDate(LocalDateTime.now())
                             .build();
-                    versionMetadataRepository.save(versionMeta);
+                    versionMetas.add(versionMeta);
                 }
+            }
+            versionMetadataRepository.saveAll(versionMetas);
+        } finally {
+            if (baseUnzipDir != null) fileUtil.deleteDirectoryRecursively(baseUnzipDir);
+            if (targetUnzipDir != null) fileUtil.deleteDirectoryRecursively(targetUnzipDir);
+        }
+    }
 
-                // 4. diff 저장 성공 후 최신 파일 교체
-                fileUtil.copyInS3(tmpKey, latestKey); // S3 내에서 파일 복사(덮어쓰기)
-                fileUtil.deleteFromS3(tmpKey);
+    /**
+     * 비동기 버전 작업 등록
+     * diff 기준이 될 이전 내용과 새 내용을 작업 전용 위치에 보존한 뒤 latest를 교체하고 PENDING 작업을 저장한다.
+     * 청크 모드의 버전별 manifest는 바뀌지 않으므로 복사 없이 그대로 참조한다.
+     */
+    private void enqueueVersionJob(FileMeta fileMeta, String baseKey, String latestKey, int newVersion,
+                                   File newFile, String contentType, String newManifestKey) {
+        String jobPrefix = versionJobPrefixFor(baseKey, newVersion);
+        String fileName = fileMeta.getOriginalName();
+
+        VersionJob job = VersionJob.builder()
+                .fileMeta(fileMeta)
+                .versionNumber(newVersion)
+                .fileBaseKey(baseKey)
+                .mimeType(contentType)
+                .status(VersionJobStatus.PENDING)
+                .build();
+
+        // 이전 내용: 청크 manifest가 있으면 그대로, 없으면 덮어쓰기 전에 latest를 서버 측 복사
+        if (fileMeta.getManifestKey() != null) {
+            job.setSourceManifestKey(fileMeta.getManifestKey());
+        } else {
+            String sourceKey = jobPrefix + "source/" + fileName;
+            fileUtil.copyInS3(latestKey, sourceKey);
+            job.setSourceKey(sourceKey);
+        }
 
-                // 5. fileMeta 갱신
-                fileMeta.setCurrentVersion(newVersion);
-                fileMeta.setS3Key(latestKey); // 최신 파일의 위치로 갱신
-                fileMeta.setSize(file.getSize());
-                fileMeta.setMimeType(file.getContentType());
-                try {
-                    fileMeta.setHash(calculateFileHash(file.getInputStream()));
-                } catch (IOException e) {
-                    throw new RuntimeException("파일 해시 계산 중 오류", e);
-                }
-                fileMeta.setLastModified(LocalDateTime.now());
-                fileMeta.setLastSyncTime(LocalDateTime.now());
-                fileMetaRepository.save(fileMeta);
+        // 새 내용: 청크 모드면 새 manifest, 아니면 작업용 사본을 올리고 latest는 서버 측 복사로 교체
+        if (newManifestKey != null) {
+            chunkStore.store(newManifestKey, newFile);
+            job.setTargetManifestKey(newManifestKey);
+        } else {
+            String targetKey = jobPrefix + "target/" + fileName;
+            fileUtil.uploadToS3(targetKey, newFile, contentType);
+            fileUtil.copyInS3(targetKey, latestKey);
+            job.setTargetKey(targetKey);
+        }
 
-                System.out.println("[업데이트] 파일 메타데이터/버전메타데이터 갱신 완료");
-                return latestKey;
+        versionJobRepository.save(job);
+        System.out.println("[업데이트] 버전 작업 등록: fileId " + fileMeta.getId() + ", v" + newVersion);
+    }
 
-            } catch (IOException e) {
-                try { fileUtil.deleteFromS3(tmpKey); } catch (Exception ignore) {}
-                System.out.println("[업데이트][에러] S3 업로드/처리 중 오류: " + e.getMessage());
-                throw new RuntimeException("S3 업로드/처리 중 오류 발생", e);
-            }
+    /**
+     * 버전 작업이 끝내 실패했을 때 보존해 둔 새 내용을 snapshot 버전으로 등록
+     * diff는 만들지 못했지만 해당 버전은 이 snapshot에서 그대로 복원할 수 있다.
+     */
+    public void storeFallbackSnapshot(FileMeta fileMeta, String baseKey, int version,
+                                      String targetKey, String targetManifestKey) {
+        String fileName = fileMeta.getOriginalName();
+        String snapshotKey = snapshotKeyFor(baseKey, fileName, getExtension(fileName), version);
+        // 청크 모드는 manifest가 그대로 남으므로 가리키기만 하고, 아니면 작업용 사본(.jobs)을 snapshot 위치로 복사
+        if (targetManifestKey == null) {
+            fileUtil.copyInS3(targetKey, snapshotKey);
         }
+        versionMetadataRepository.save(VersionMetadata.builder()
+                .fileMeta(fileMeta)
+                .versionNumber(version)
+                .versionType(VersionType.SNAPSHOT)
+                .s3Key(snapshotKey)
+                .manifestKey(targetManifestKey)
+                .createdDate(LocalDateTime.now())
+                .build());
+        System.out.println("[버전 작업] 실패한 버전을 snapshot으로 저장: " + snapshotKey);
     }
 
-    // 파일 확장자 추출 함수 예시
-    private String getExtension(String fileName) {
-        int dotIdx = fileName.lastIndexOf('.');
-        return (dotIdx != -1) ? fileName.substring(dotIdx + 1) : "";
+    // 비동기 버전 작업용 임시 객체 prefix (작업 완료 후 삭제)
+    public String versionJobPrefixFor(String baseKey, int version) {
+        return baseKey + String.format("/.jobs/v%d/", version);
+    }
+
+    // 교착(deadlock)이나 잠금 대기 시간 초과로 트랜잭션이 롤백된 업로드는 서버 오류가 아니라 다시 시도할 요청 (409)
+    private ResponseStatusException uploadLockConflict(String fileName, PessimisticLockingFailureException e) {
+        System.out.println("[업로드] 잠금 충돌로 롤백: " + fileName + " - " + e.getMostSpecificCause().getMessage());
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "같은 폴더의 다른 업로드와 잠금이 충돌했습니다. 다시 업로드하세요: " + fileName, e);
     }
 
     /**
-     * 파일의 SHA-256 해시값을 계산하는 메서드
+     * 파일 단위 업로드 잠금을 잡고 현재 트랜잭션이 끝날 때(커밋/롤백) 해제
+     * 잠금을 커밋 이후까지 유지해야 다음 업로드가 커밋된 currentVersion을 읽는다.
+     * 파일 키 해시로 stripe를 고르므로 서로 다른 파일의 업로드는 대부분 병렬로 진행된다.
+     */
+    private void lockFileUntilCompletion(Long userId, Long syncFolderId, String fileName) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 트랜잭션 밖 호출(프록시를 거치지 않은 경우)은 행 잠금만 사용
+            return;
+        }
+        ReentrantLock lock = uploadLocks[Math.floorMod(Objects.hash(userId, syncFolderId, fileName), uploadLocks.length)];
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    // 버전별 snapshot S3 key (최초 버전과 체크포인트 공통)
+    private String snapshotKeyFor(String baseKey, String fileName, String extension, int version) {
+        return baseKey + "/.snapshot/" + fileName.replace("." + extension, "_v" + version + "." + extension);
+    }
+
+    // 버전별 chunk manifest S3 key (파일 prefix 아래에 두어 파일 삭제 시 함께 삭제됨)
+    private String manifestKeyFor(String baseKey, int version) {
+        return baseKey + String.format("/.manifests/v%d.manifest", version);
+    }
+
+    /**
+     * 체크포인트 정책: 마지막 snapshot 이후 버전 수 또는 누적 diff 크기가 기준을 넘으면 새 snapshot을 저장
+     * 복원은 대상 버전 이하의 가장 가까운 snapshot부터 시작하므로 재생해야 할 diff 수가 제한된다.
      *
-     * @param inputStream 파일 입력 스트림
-     * @return SHA-256 해시값
+     * @param fileMeta   파일 메타데이터
+     * @param newVersion 새로 생성할 버전 번호
+     * @param diffs      새 버전의 diff 목록
+     * @return snapshot으로 저장해야 하면 true
      */
-    private String calculateFileHash(InputStream inputStream) throws IOException {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[8192];
-            int read;
+    private boolean shouldCheckpoint(FileMeta fileMeta, int newVersion, List<DiffResult> diffs) {
+        if (checkpointInterval <= 0 && checkpointMaxDiffBytes <= 0) {
+            return false;
+        }
+        int lastSnapshotVersion = versionMetadataRepository
+                .findTopByFileMeta_IdAndVersionTypeOrderByVersionNumberDesc(fileMeta.getId(), VersionType.SNAPSHOT)
+                .map(VersionMetadata::getVersionNumber)
+                .orElse(1);
 
-            while ((read = inputStream.read(buffer)) > 0) {
-                digest.update(buffer, 0, read);
+        if (checkpointInterval > 0 && newVersion - lastSnapshotVersion >= checkpointInterval) {
+            return true;
+        }
+        if (checkpointMaxDiffBytes > 0) {
+            long newDiffBytes = diffs.stream().mapToLong(DiffResult::getSize).sum();
+            long accumulated = versionMetadataRepository.sumSizeAfterVersion(fileMeta.getId(), VersionType.DIFF, lastSnapshotVersion);
+            return accumulated + newDiffBytes >= checkpointMaxDiffBytes;
+        }
+        return false;
+    }
+
+    // 병렬 S3 전송을 모두 기다리고, 실패하면 원래 예외를 그대로 던짐
+    private void awaitAll(CompletableFuture<?>... transfers) {
+        try {
+            CompletableFuture.allOf(transfers).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw e;
+        }
+    }
 
-            byte[] hash = digest.digest();
+    // 업로드 처리용 로컬 임시 파일 정리 (캐시로 이동된 경우에는 이미 없음)
+    private void deleteTempFile(File tempFile) {
+        if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
+            System.err.println("임시 파일 삭제 실패: " + tempFile.getAbsolutePath());
+        }
+    }
 
-            // 바이트 배열을 16진수 문자열로 변환
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
+    // 파일 확장자 추출 함수 예시
+    private String getExtension(String fileName) {
+        int dotIdx = fileName.lastIndexOf('.');
+        return (dotIdx != -1) ? fileName.substring(dotIdx + 1) : "";
+    }
 
-            return hexString.toString();
+    // 업로드 스트림 해시 계산용 SHA-256 digest
+    private MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("SHA-256 알고리즘을 찾을 수 없습니다.", e);
-        } finally {
-            // 스트림을 닫지 않고 리셋( MultipartFile에서 다시 스트림을 열 수 있도록)
-            if (inputStream.markSupported()) {
-                inputStream.reset();
+        }
+    }
+
+    // 바이트 배열을 16진수 문자열로 변환 (FileMeta.hash 형식)
+    private String toHexString(byte[] hash) {
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
             }
+            hexString.append(hex);
         }
+        return hexString.toString();
     }
 
     @Transactional(readOnly = true)
@@ -283,6 +616,13 @@ public class FileService {
 
         System.out.println("[" + now + "] downloadFileWithValidation - s3Key: " + s3Key);
 
+        // 청크 모드로 저장된 최신 파일은 manifest의 청크를 이어서 전송
+        Optional<FileMeta> chunked = fileMetaRepository.findByUserIdAndSyncFolderIdAndRelativePath(userId, syncFolderId, relativePath)
+                .filter(meta -> meta.getManifestKey() != null);
+        if (chunked.isPresent()) {
+            return new InputStreamResource(chunkStore.open(chunked.get().getManifestKey()));
+        }
+
         // 내부용 다운로드 메서드 호출
         return downloadFile(s3Key);
     }
@@ -317,16 +657,19 @@ public class FileService {
         // 폴더 접근 권한 검증
         validateFolderAccess(userId, folderId);
 
-        // 서버에 저장된 파일 목록 조회
-        List<FileMeta> serverFiles = fileMetaRepository.findBySyncFolderId(folderId);
+        // 목록 조회 전 변경 순번 (이후 변경은 이 cursor로 getChangesSince에서 받음, 중복 수신은 무해)
+        long cursor = syncFolderRepository.findChangeSeq(folderId);
+
+        // 서버에 저장된 파일 목록 조회 (projection, 엔티티는 갱신할 파일만 로딩)
+        List<FileMetaSummary> serverFiles = fileMetaRepository.findSummariesBySyncFolderId(folderId);
 
         // 클라이언트 파일 이름 -> 메타데이터 맵 생성
         Map<String, FileMetaDTO> clientFileMap = request.getClientFiles().stream()
                 .collect(Collectors.toMap(FileMetaDTO::getRelativePath, file -> file));
 
         // 서버 파일 이름 -> 메타데이터 맵 생성
-        Map<String, FileMeta> serverFileMap = serverFiles.stream()
-                .collect(Collectors.toMap(this::extractRelativePath, file -> file));
+        Map<String, FileMetaSummary> serverFileMap = serverFiles.stream()
+                .collect(Collectors.toMap(FileMetaSummary::relativePath, file -> file));
 
         // 삭제 요청 처리
         if (request.getDeletedFileIds() != null && !request.getDeletedFileIds().isEmpty()) {
@@ -336,11 +679,11 @@ public class FileService {
         // 업로드 대상 파일 식별 ( 클라이언트에는 있지만 서버에 없거나, 해시가 다른 파일)
         List<String> filesToUpload = new ArrayList<>();
         for (FileMetaDTO clientFile : request.getClientFiles()) {
-            FileMeta serverFile = serverFileMap.get(clientFile.getRelativePath());
+            FileMetaSummary serverFile = serverFileMap.get(clientFile.getRelativePath());
             if (serverFile == null) {
                 // 서버에 없는 새 파일은 업로드 대상
                 filesToUpload.add(clientFile.getRelativePath());
-            } else if (!Objects.equals(clientFile.getHash(), serverFile.getHash())) {
+            } else if (!Objects.equals(clientFile.getHash(), serverFile.hash())) {
                 // 해시가 다른 파일(내용이 변경됨)은 업로드 대상
 
                 // 클라이언트의 lastModified 시간 파싱
@@ -349,13 +692,13 @@ public class FileService {
                         DateTimeFormatter.ISO_DATE_TIME);
 
                 // 클라이언트의 lastModified가 서버보다 최신이면 업로드 대상에 추가
-                if (clientLastModified.isAfter(serverFile.getLastModified())) {
+                if (clientLastModified.isAfter(serverFile.lastModified())) {
 
-                    serverFile.setHash(clientFile.getHash()); // hash 갱신
-                    serverFile.setSize(clientFile.getSize()); // file size 갱신
-                    serverFile.setLastModified(clientLastModified); // lastModified 갱신
-                    serverFile.setLastSyncTime(LocalDateTime.now()); // 동기화 시간 갱신
-                    fileMetaRepository.save(serverFile); // DB에 반영(자동으로 해주지만 명확성을 위해 작성)
+                    // hash/size는 실제 업로드에서 갱신 (미리 바꾸면 업로드가 변경 없음으로 처리됨)
+                    FileMeta fileMeta = fileMetaRepository.getReferenceById(serverFile.fileId());
+                    fileMeta.setLastModified(clientLastModified); // lastModified 갱신
+                    fileMeta.setLastSyncTime(LocalDateTime.now()); // 동기화 시간 갱신
+                    fileMetaRepository.save(fileMeta); // DB에 반영(자동으로 해주지만 명확성을 위해 작성)
                     filesToUpload.add(clientFile.getRelativePath());
                 }
             }
@@ -363,9 +706,9 @@ public class FileService {
 
         // 다운로드 대상 파일 식별(서버에는 있지만 클라이언트에 없는 파일)
         List<String> filesToDownload = new ArrayList<>();
-        for (FileMeta serverFile : serverFiles) {
-            String serverRelativePath = extractRelativePath(serverFile);
-            if (!clientFileMap.containsKey(serverRelativePath) && (request.getDeletedFileIds() == null || !request.getDeletedFileIds().contains(serverFile.getId()))) {
+        for (FileMetaSummary serverFile : serverFiles) {
+            String serverRelativePath = serverFile.relativePath();
+            if (!clientFileMap.containsKey(serverRelativePath) && (request.getDeletedFileIds() == null || !request.getDeletedFileIds().contains(serverFile.fileId()))) {
                 filesToDownload.add(serverRelativePath);
             }
         }
@@ -376,10 +719,12 @@ public class FileService {
         // 버전 관리를 위해서 구현해야함 현재는 그냥 덮어쓰기
         // 변경된 파일을 감지하는 로직 추가 필요
 
-        // 서버 파일 메타데이터 토큰 DTO로 변환
-        List<FileMetaDTO> serverFilesDTOs = serverFiles.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // 서버 파일 메타데이터 토큰 DTO로 변환 (includeServerFiles=false면 생략, 목록은 페이지/스트림 API로 받음)
+        List<FileMetaDTO> serverFilesDTOs = Boolean.FALSE.equals(request.getIncludeServerFiles())
+                ? List.of()
+                : serverFiles.stream()
+                        .map(this::convertSummaryToDTO)
+                        .collect(Collectors.toList());
 
         // 결과 반환
         SyncResult result = new SyncResult();
@@ -387,20 +732,118 @@ public class FileService {
         result.setFilesToUpload(filesToUpload);
         result.setFilesToDownload(filesToDownload);
         result.setConflictFiles(conflictFiles);
+        result.setCursor(cursor);
 
         return result;
     }
 
-    // 상대 경로 추출 메서드
+    /**
+     * cursor 이후의 폴더 변경 기록 조회 (증분 동기화)
+     * 같은 파일의 변경이 여러 번 있으면 한 페이지 안에서는 마지막 변경만 돌려준다.
+     *
+     * @param userId   사용자 ID
+     * @param folderId 폴더 ID
+     * @param since    마지막으로 받은 cursor (처음이면 0)
+     * @param limit    최대 변경 기록 수
+     * @return 변경 목록과 다음 cursor
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeed getChangesSince(Long userId, Long folderId, long since, int limit) {
+        validateFolderAccess(userId, folderId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_CHANGE_PAGE));
+
+        // 한 개 더 읽어서 남은 변경이 있는지 판단
+        List<FileChange> changes = fileChangeRepository.findBySyncFolder_IdAndSeqGreaterThanOrderBySeqAsc(
+                folderId, since, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+        long cursor = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+
+        // 파일별 마지막 변경만 남김 (seq 오름차순 유지)
+        Map<Long, FileChange> latestByFile = new LinkedHashMap<>();
+        for (FileChange change : changes) {
+            latestByFile.remove(change.getFileId());
+            latestByFile.put(change.getFileId(), change);
+        }
+        List<FileChangeDTO> dtos = latestByFile.values().stream()
+                .map(this::convertToChangeDTO)
+                .collect(Collectors.toList());
+        return new ChangeFeed(dtos, cursor, hasMore);
+    }
+
+    /**
+     * 폴더 변경 기록 추가 및 Merkle tree/검색 색인 갱신
+     * 폴더 행의 changeSeq를 올리면서 행 잠금을 잡으므로 같은 폴더의 seq와 트리 갱신은 커밋 순서와 일치한다.
+     */
+    private void recordChange(FileMeta fileMeta, FileChangeType changeType) {
+        Long folderId = fileMeta.getSyncFolder().getId();
+        syncFolderRepository.incrementChangeSeq(folderId);
+        long seq = syncFolderRepository.findChangeSeq(folderId);
+
+        String directory = directoryOf(fileMeta);
+        if (changeType == FileChangeType.DELETED) {
+            merkleTreeService.removeFile(fileMeta.getSyncFolder(), directory, fileMeta.getOriginalName());
+        } else {
+            merkleTreeService.putFile(fileMeta.getSyncFolder(), directory, fileMeta.getOriginalName(),
+                    fileMeta.getHash(), fileMeta.getId());
+            fileSearchService.index(fileMeta, directory);
+        }
+
+        FileChange change = FileChange.builder()
+                .syncFolder(fileMeta.getSyncFolder())
+                .seq(seq)
+                .fileId(fileMeta.getId())
+                .relativePath(extractRelativePath(fileMeta))
+                .changeType(changeType)
+                .hash(fileMeta.getHash())
+                .size(fileMeta.getSize())
+                .version(fileMeta.getCurrentVersion())
+                .build();
+        fileChangeRepository.save(change);
+    }
+
+    private FileChangeDTO convertToChangeDTO(FileChange change) {
+        return FileChangeDTO.builder()
+                .seq(change.getSeq())
+                .fileId(change.getFileId())
+                .relativePath(change.getRelativePath())
+                .changeType(change.getChangeType())
+                .hash(change.getHash())
+                .size(change.getSize())
+                .version(change.getVersion())
+                .changedAt(change.getChangedAt() != null
+                        ? change.getChangedAt().format(DateTimeFormatter.ISO_DATE_TIME)
+                        : null)
+                .build();
+    }
+
+    // 상대 경로 추출 메서드 (생성 시 항상 저장되는 NOT NULL 컬럼을 그대로 사용, 연관 엔티티를 건드리지 않음)
     public String extractRelativePath(FileMeta file){
-        String s3Key = file.getS3Key();
-        String prefix = String.format("users/%d/sync-folders/%d/",file.getUser().getId(), file.getSyncFolder().getId());
+        return file.getRelativePath();
+    }
+
+    // s3Key에서 폴더 prefix를 뺀 상대 경로
+    private String relativePathOf(Long userId, Long syncFolderId, String s3Key) {
+        String prefix = String.format("users/%d/sync-folders/%d/", userId, syncFolderId);
 
         return s3Key.startsWith(prefix)
                 ? s3Key.substring(prefix.length())
                 : "";
     }
 
+    // 파일이 있는 디렉터리 경로 (상대 경로 "dir/name/latest/name"에서 "dir", 루트면 "")
+    private String directoryOf(FileMeta file) {
+        String relativePath = extractRelativePath(file);
+        String suffix = file.getOriginalName() + "/latest/" + file.getOriginalName();
+        if (!relativePath.endsWith(suffix)) {
+            return "";
+        }
+        String dir = relativePath.substring(0, relativePath.length() - suffix.length());
+        return dir.endsWith("/") ? dir.substring(0, dir.length() - 1) : dir;
+    }
+
     /**
      * 삭제 요청된 파일들을 처리하는 메서드
      *
@@ -419,10 +862,12 @@ public class FileService {
             }
             String basePrefix = s3Key.substring(0, latestIdx);
 
-            deleteAllS3ObjectsWithPrefix(basePrefix + "/");
-
-            // DB에서 메타데이터 삭제
+            // DB에서 메타데이터 삭제 (삭제 기록을 먼저 남김)
+            recordChange(file, FileChangeType.DELETED);
             fileMetaRepository.delete(file);
+            releaseAndDeleteObjects(basePrefix + "/");
+            latestFileCache.invalidate(s3Key);
+            restoreCache.invalidate(file.getId());
         }
     }
 
@@ -459,11 +904,14 @@ public class FileService {
         }
         String basePrefix = s3Key.substring(0, latestIdx);
 
-        // S3에서 prefix로 시작하는 모든 객체 삭제
-        deleteAllS3ObjectsWithPrefix(basePrefix + "/");
-
-        // DB에서 파일 메타데이터 삭제
+        // DB에서 파일 메타데이터 삭제 (삭제 기록을 먼저 남김)
+        recordChange(fileMeta, FileChangeType.DELETED);
         fileMetaRepository.delete(fileMeta);
+
+        // S3에서 prefix로 시작하는 모든 객체 삭제 (공유 청크는 참조 해제 후 커밋 시 삭제)
+        releaseAndDeleteObjects(basePrefix + "/");
+        latestFileCache.invalidate(s3Key);
+        restoreCache.invalidate(fileMeta.getId());
         System.out.printf("[%s] 파일 및 관련 버전 전체 삭제 완료%n", fileMeta.getOriginalName());
     }
 
@@ -480,11 +928,8 @@ public class FileService {
         // 폴더 접근 권한 검증
         validateFolderAccess(userId, folderId);
 
-        // s3 키 생성
-        String s3Key = String.format("users/%d/sync-folders/%d/%s", userId, folderId, relativePath);
-
-        // s3키로 파일 메타 데이터 조회
-        FileMeta fileMeta = fileMetaRepository.findByUserIdAndSyncFolderIdAndS3Key(userId, folderId, s3Key)
+        // 상대 경로로 파일 메타 데이터 조회
+        FileMeta fileMeta = fileMetaRepository.findByUserIdAndSyncFolderIdAndRelativePath(userId, folderId, relativePath)
                 .orElseThrow(() -> new ResourceNotFoundException("파일을 찾을 수 없습니다: " + relativePath));
 
         // 엔티티를 dto로 변환하여 반환
@@ -531,6 +976,31 @@ public class FileService {
         return dto;
     }
 
+    /**
+     * 목록 projection을 FileMetaDTO로 변환하는 메서드
+     * @param summary 파일 목록 projection
+     * @return 파일 메타데이터 DTO
+     */
+    private FileMetaDTO convertSummaryToDTO(FileMetaSummary summary) {
+        FileMetaDTO dto = new FileMetaDTO();
+        dto.setFileId(summary.fileId());
+        dto.setOriginalName(summary.originalName());
+        dto.setRelativePath(summary.relativePath());
+        dto.setSize(summary.size());
+        dto.setHash(summary.hash());
+        dto.setMimeType(summary.mimeType());
+        if (summary.createdAt() != null) {
+            dto.setCreatedAt(summary.createdAt().format(DateTimeFormatter.ISO_DATE_TIME));
+        }
+        if (summary.lastModified() != null) {
+            dto.setLastModified(summary.lastModified().format(DateTimeFormatter.ISO_DATE_TIME));
+        }
+        if (summary.lastSyncTime() != null) {
+            dto.setLastSyncTime(summary.lastSyncTime().format(DateTimeFormatter.ISO_DATE_TIME));
+        }
+        return dto;
+    }
+
     /**
      * 특정 사용자와 폴더의 파일 메타데이터 조회
      *
@@ -543,49 +1013,145 @@ public class FileService {
         // 폴더 접근 권한 검증
         validateFolderAccess(userId, syncFolderId);
 
-        // 사용자와 폴더 id로 파일 조회
-        List<FileMeta> files = fileMetaRepository.findByUserIdAndSyncFolderId(userId, syncFolderId);
+        // 사용자와 폴더 id로 파일 조회 (필요한 컬럼만 projection으로 읽음)
+        List<FileMetaSummary> files = fileMetaRepository.findSummariesByUserIdAndSyncFolderId(userId, syncFolderId);
 
-        // 엔티티를 dto로 변환하여 반환
+        // projection을 dto로 변환하여 반환
         return files.stream()
-                .map(this::convertToDTO)
+                .map(this::convertSummaryToDTO)
                 .collect(Collectors.toList());
     }
 
     /**
-     * 파일명으로 파일 검색
+     * 특정 사용자와 폴더의 파일 목록 한 페이지 조회 (id 기준 keyset 페이지네이션)
+     *
+     * @param userId       사용자 ID
+     * @param syncFolderId 폴더 ID
+     * @param afterId      이전 페이지의 nextCursor (처음이면 null)
+     * @param size         페이지 크기
+     * @return 파일 목록과 다음 cursor
+     */
+    @Transactional(readOnly = true)
+    public FilePage getFilesPage(Long userId, Long syncFolderId, Long afterId, int size) {
+        validateFolderAccess(userId, syncFolderId);
+        int pageSize = Math.max(1, Math.min(size, MAX_LIST_PAGE));
+
+        // 한 개 더 읽어서 다음 페이지가 있는지 판단
+        List<FileMetaSummary> rows = fileMetaRepository.findSummariesAfter(
+                userId, syncFolderId, afterId == null ? 0L : afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        List<FileMetaDTO> files = rows.stream()
+                .map(this::convertSummaryToDTO)
+                .collect(Collectors.toList());
+        Long nextCursor = hasMore ? rows.get(rows.size() - 1).fileId() : null;
+        return new FilePage(files, nextCursor, hasMore);
+    }
+
+    /**
+     * 특정 사용자와 폴더의 파일 목록을 한 행씩 전달 (전체 목록을 메모리에 만들지 않음)
+     * DB 커서는 이 트랜잭션 안에서만 유효하므로 consumer에서 바로 응답에 써야 한다.
+     *
+     * @param userId       사용자 ID
+     * @param syncFolderId 폴더 ID
+     * @param consumer     행마다 호출할 처리기
+     */
+    @Transactional(readOnly = true)
+    public void streamFiles(Long userId, Long syncFolderId, Consumer<FileMetaDTO> consumer) {
+        validateFolderAccess(userId, syncFolderId);
+        try (Stream<FileMetaSummary> rows = fileMetaRepository.streamSummaries(userId, syncFolderId)) {
+            rows.map(this::convertSummaryToDTO).forEach(consumer);
+        }
+    }
+
+    /**
+     * 파일명으로 파일 검색 (파일명/경로 n-gram 색인 사용, 대소문자 무시)
      *
      * @param userId  사용자 ID (권한 검증용)
      * @param keyword 검색 키워드
-     * @return 검색된 파일 메타데이터 목록
+     * @param prefix  true면 파일명/경로가 키워드로 시작하는 파일만 검색
+     * @param page    페이지 번호 (0부터)
+     * @param size    페이지 크기
+     * @return 검색된 파일 메타데이터 목록 (경로순)
      */
     @Transactional(readOnly = true)
-    public List<FileMetaDTO> searchFilesByName(Long userId, String keyword) {
+    public List<FileMetaDTO> searchFilesByName(Long userId, String keyword, boolean prefix, int page, int size) {
         // 사용자 존재 여부 확인
         userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("사용자를 찾을 수 없습니다: " + userId));
-        // S3 키로 검색
-        List<FileMeta> files = fileMetaRepository.findByUserIdAndS3KeyContaining(userId, keyword);
+        // 색인에서 후보를 좁혀 검색
+        List<Long> fileIds = fileSearchService.search(userId, keyword, prefix,
+                Math.max(page, 0), Math.max(1, Math.min(size, MAX_SEARCH_PAGE)));
+        if (fileIds.isEmpty()) {
+            return List.of();
+        }
 
-        // dto로 변환하여 반환
-        return files.stream()
+        // 한 번에 조회한 뒤 검색 결과 순서대로 dto로 변환하여 반환
+        Map<Long, FileMeta> files = fileMetaRepository.findAllById(fileIds).stream()
+                .collect(Collectors.toMap(FileMeta::getId, file -> file));
+        return fileIds.stream()
+                .map(files::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 파일 prefix의 청크 참조를 해제한 뒤 prefix 아래 객체 삭제
+     * 파일 행 삭제를 먼저 반영해 업로드와 같은 순서(파일 행 -> 청크 행)로 잠그고,
+     * manifest를 읽어야 하므로 S3 객체보다 먼저 참조를 해제한다.
+     */
+    private void releaseAndDeleteObjects(String basePrefix) {
+        fileMetaRepository.flush();
+        chunkStore.release(basePrefix);
+        deleteAllS3ObjectsWithPrefix(basePrefix);
+    }
+
+    /**
+     * prefix 아래의 모든 S3 객체 삭제
+     * 목록 한 페이지(최대 1000개)마다 DeleteObjects 한 번으로 지우고, 삭제 요청은 다음 페이지 목록 조회와 겹쳐 실행한다.
+     *
+     * @param prefix 삭제할 S3 key prefix (예: users/1/sync-folders/2/)
+     */
     public void deleteAllS3ObjectsWithPrefix(String prefix) {
         ListObjectsV2Request req = new ListObjectsV2Request()
                 .withBucketName(bucketName)
-                .withPrefix(prefix);
+                .withPrefix(prefix)
+                .withMaxKeys(1000);
+        List<CompletableFuture<Integer>> batches = new ArrayList<>();
         ListObjectsV2Result result;
         do {
             result = amazonS3.listObjectsV2(req);
-            for (S3ObjectSummary obj : result.getObjectSummaries()) {
-                amazonS3.deleteObject(bucketName, obj.getKey());
-                System.out.printf("[S3] 삭제: %s%n", obj.getKey());
+            List<DeleteObjectsRequest.KeyVersion> keys = result.getObjectSummaries().stream()
+                    .map(obj -> new DeleteObjectsRequest.KeyVersion(obj.getKey()))
+                    .toList();
+            if (!keys.isEmpty()) {
+                DeleteObjectsRequest deleteRequest = new DeleteObjectsRequest(bucketName)
+                        .withKeys(keys)
+                        .withQuiet(true);
+                batches.add(CompletableFuture.supplyAsync(() -> deleteBatch(deleteRequest), s3TransferExecutor));
             }
             req.setContinuationToken(result.getNextContinuationToken());
         } while (result.isTruncated());
+
+        awaitAll(batches.toArray(new CompletableFuture<?>[0]));
+        int deleted = batches.stream().mapToInt(CompletableFuture::join).sum();
+        System.out.printf("[S3] 삭제: %s (%d개)%n", prefix, deleted);
+    }
+
+    // 일부 키만 실패하면 실패한 키를 기록하고 나머지 삭제 결과는 유지
+    private int deleteBatch(DeleteObjectsRequest request) {
+        try {
+            amazonS3.deleteObjects(request);
+            return request.getKeys().size();
+        } catch (MultiObjectDeleteException e) {
+            for (MultiObjectDeleteException.DeleteError error : e.getErrors()) {
+                System.err.printf("[S3] 삭제 실패: %s (%s)%n", error.getKey(), error.getMessage());
+            }
+            return request.getKeys().size() - e.getErrors().size();
+        }
     }
 
 }
@@ -0,0 +1,188 @@
+package com.capstone.xor.service;
+
+import com.capstone.xor.dto.MerkleNodeDTO;
+import com.capstone.xor.entity.MerkleNode;
+import com.capstone.xor.entity.SyncFolder;
+import com.capstone.xor.exception.ResourceNotFoundException;
+import com.capstone.xor.repository.MerkleNodeRepository;
+import com.capstone.xor.repository.SyncFolderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 싱크 폴더별 Merkle tree 관리
+ * 파일이 바뀌면 그 파일 노드와 조상 디렉터리 노드만 다시 계산한다.
+ * 클라이언트는 루트 hash부터 비교하고 hash가 다른 디렉터리로만 내려가면 된다.
+ * 갱신은 FileService의 변경 기록과 같은 트랜잭션(폴더 행 잠금 안)에서 호출되므로 같은 폴더의 갱신은 직렬화된다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MerkleTreeService {
+    private static final String ROOT = "";
+
+    private final MerkleNodeRepository merkleNodeRepository;
+    private final SyncFolderRepository syncFolderRepository;
+
+    /**
+     * 파일 노드 추가/갱신 후 조상 디렉터리 hash 재계산
+     *
+     * @param syncFolder 소속 폴더
+     * @param directory  파일이 있는 디렉터리 경로 (루트는 "")
+     * @param name       파일명
+     * @param hash       파일 해시
+     * @param fileId     파일 id
+     */
+    @Transactional
+    public void putFile(SyncFolder syncFolder, String directory, String name, String hash, Long fileId) {
+        String dir = normalize(directory);
+        String path = join(dir, name);
+        MerkleNode node = merkleNodeRepository.findBySyncFolder_IdAndPath(syncFolder.getId(), path)
+                .orElseGet(MerkleNode::new);
+        node.setSyncFolder(syncFolder);
+        node.setPath(path);
+        node.setParentPath(dir);
+        node.setName(name);
+        node.setDirectory(false);
+        node.setHash(hash != null ? hash : "");
+        node.setFileId(fileId);
+        merkleNodeRepository.save(node);
+
+        recomputeUpward(syncFolder, dir);
+    }
+
+    /**
+     * 파일 노드 삭제 후 조상 디렉터리 hash 재계산 (비게 된 디렉터리 노드는 삭제)
+     */
+    @Transactional
+    public void removeFile(SyncFolder syncFolder, String directory, String name) {
+        String dir = normalize(directory);
+        merkleNodeRepository.findBySyncFolder_IdAndPath(syncFolder.getId(), join(dir, name))
+                .ifPresent(merkleNodeRepository::delete);
+
+        recomputeUpward(syncFolder, dir);
+    }
+
+    /**
+     * 노드 hash와 직속 자식 조회
+     *
+     * @param userId   사용자 ID
+     * @param folderId 폴더 ID
+     * @param path     조회할 경로 (null 또는 ""이면 루트)
+     * @return 노드 정보 (파일이 하나도 없는 폴더의 루트는 빈 hash)
+     */
+    @Transactional(readOnly = true)
+    public MerkleNodeDTO getNode(Long userId, Long folderId, String path) {
+        SyncFolder syncFolder = syncFolderRepository.findById(folderId)
+                .orElseThrow(() -> new ResourceNotFoundException("폴더를 찾을 수 없습니다: " + folderId));
+        if (!syncFolder.getUser().getId().equals(userId)) {
+            throw new AccessDeniedException("해당 폴더에는 접근 권한이 없습니다: 사용자 ID" + userId);
+        }
+
+        String target = normalize(path);
+        MerkleNode node = merkleNodeRepository.findBySyncFolder_IdAndPath(folderId, target).orElse(null);
+        if (node == null) {
+            if (!target.equals(ROOT)) {
+                throw new ResourceNotFoundException("경로를 찾을 수 없습니다: " + target);
+            }
+            // 아직 파일이 없는 폴더
+            return MerkleNodeDTO.builder().path(ROOT).name(ROOT).directory(true)
+                    .hash(digest(List.of())).children(List.of()).build();
+        }
+
+        MerkleNodeDTO dto = toDTO(node);
+        if (node.isDirectory()) {
+            dto.setChildren(merkleNodeRepository.findBySyncFolder_IdAndParentPathOrderByNameAsc(folderId, target).stream()
+                    .map(this::toDTO)
+                    .collect(Collectors.toList()));
+        }
+        return dto;
+    }
+
+    // dir부터 루트까지 디렉터리 hash를 다시 계산
+    private void recomputeUpward(SyncFolder syncFolder, String dir) {
+        Long folderId = syncFolder.getId();
+        String current = dir;
+        while (true) {
+            List<MerkleNode> children = merkleNodeRepository.findBySyncFolder_IdAndParentPathOrderByNameAsc(folderId, current);
+            MerkleNode node = merkleNodeRepository.findBySyncFolder_IdAndPath(folderId, current).orElse(null);
+            if (children.isEmpty() && !current.equals(ROOT)) {
+                // 빈 디렉터리는 트리에서 제거
+                if (node != null) {
+                    merkleNodeRepository.delete(node);
+                }
+            } else {
+                if (node == null) {
+                    node = new MerkleNode();
+                    node.setSyncFolder(syncFolder);
+                    node.setPath(current);
+                    node.setParentPath(current.equals(ROOT) ? null : parentOf(current));
+                    node.setName(nameOf(current));
+                    node.setDirectory(true);
+                }
+                node.setHash(digest(children));
+                merkleNodeRepository.save(node);
+            }
+            if (current.equals(ROOT)) {
+                return;
+            }
+            current = parentOf(current);
+        }
+    }
+
+    // 자식 목록(이름순)의 "종류 이름 hash" 줄을 이은 SHA-256
+    private String digest(List<MerkleNode> children) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (MerkleNode child : children) {
+                String line = (child.isDirectory() ? "d " : "f ") + child.getName() + " " + child.getHash() + "\n";
+                md.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 알고리즘을 찾을 수 없습니다.", e);
+        }
+    }
+
+    private MerkleNodeDTO toDTO(MerkleNode node) {
+        return MerkleNodeDTO.builder()
+                .path(node.getPath())
+                .name(node.getName())
+                .directory(node.isDirectory())
+                .hash(node.getHash())
+                .fileId(node.getFileId())
+                .build();
+    }
+
+    // 앞뒤 '/'와 '\' 구분자 정리 (null이면 루트)
+    private String normalize(String path) {
+        if (path == null) {
+            return ROOT;
+        }
+        String p = path.replace('\\', '/');
+        while (p.startsWith("/")) p = p.substring(1);
+        while (p.endsWith("/")) p = p.substring(0, p.length() - 1);
+        return p;
+    }
+
+    private String join(String dir, String name) {
+        return dir.isEmpty() ? name : dir + "/" + name;
+    }
+
+    private String parentOf(String path) {
+        int idx = path.lastIndexOf('/');
+        return idx == -1 ? ROOT : path.substring(0, idx);
+    }
+
+    private String nameOf(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
@@ -1,7 +1,7 @@
 package com.capstone.xor.service;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.capstone.xor.dto.SyncFolderResponse;
 import com.capstone.xor.entity.FileMeta;
 import com.capstone.xor.entity.SyncFolder;
@@ -9,10 +9,15 @@ import com.capstone.xor.entity.User;
 import com.capstone.xor.repository.FileMetaRepository;
 import com.capstone.xor.repository.SyncFolderRepository;
 import com.capstone.xor.repository.UserRepository;
+import com.capstone.xor.util.ChunkStore;
+import com.capstone.xor.util.LatestFileCache;
+import com.capstone.xor.util.RestoreCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -25,6 +30,9 @@ public class SyncFolderService {
     private final FileMetaRepository fileMetaRepository;
     private final AmazonS3 amazonS3;
     private final FileService fileService;
+    private final RestoreCache restoreCache;
+    private final LatestFileCache latestFileCache;
+    private final ChunkStore chunkStore;
 
     @Value("${cloud.aws.s3.bucket}")
     private String bucketName;
@@ -67,19 +75,11 @@ public class SyncFolderService {
             throw new IllegalArgumentException("이 폴더는 해당 사용자의 싱크 폴더가 아닙니다.");
         }
 
-        // 폴더 내 모든 파일 메타데이터 조회
+        // 폴더 내 모든 파일의 복원/latest 캐시 정리 (같은 경로로 다시 만든 파일이 이전 latest를 diff 기준으로 쓰지 않도록)
         List<FileMeta> files = fileMetaRepository.findBySyncFolderId(folderId);
-
-        // S3에서 파일 삭제
         for (FileMeta file : files) {
-            String s3Key = file.getS3Key();
-            int latestIdx = s3Key.indexOf("/latest/");
-            if (latestIdx == -1) {
-                System.err.println("S3 키 형식이 잘못되었습니다: " + s3Key);
-                continue;
-            }
-            String basePrefix = s3Key.substring(0, latestIdx);
-            fileService.deleteAllS3ObjectsWithPrefix(basePrefix + "/");
+            restoreCache.invalidate(file.getId());
+            latestFileCache.invalidate(file.getS3Key());
         }
 
         // db에서 메타데이터 삭제
@@ -88,6 +88,32 @@ public class SyncFolderService {
         // 싱크 폴더 자체 삭제
         syncFolderRepository.delete(folder);
 
+        // 폴더 안 manifest의 공유 청크 참조 해제 (manifest 객체를 지우기 전, 파일 행 삭제 반영 후)
+        String folderPrefix = String.format("users/%d/sync-folders/%d/", userId, folderId);
+        syncFolderRepository.flush();
+        chunkStore.release(folderPrefix);
+
+        // S3는 파일별이 아니라 폴더 prefix 한 번으로 정리하고, 트랜잭션을 잡고 있지 않도록 커밋 후 실행
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteFolderObjects(folderPrefix);
+                }
+            });
+        } else {
+            deleteFolderObjects(folderPrefix);
+        }
+
         System.out.println("싱크폴더 삭제 완료: " + folder.getFolderPath());
     }
+
+    // S3 삭제가 실패해도 DB 삭제 결과는 유지 (남은 객체는 로그로 확인)
+    private void deleteFolderObjects(String folderPrefix) {
+        try {
+            fileService.deleteAllS3ObjectsWithPrefix(folderPrefix);
+        } catch (AmazonClientException e) {
+            System.err.println("싱크폴더 S3 정리 실패: " + folderPrefix + " - " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,147 @@
+package com.capstone.xor.service;
+
+import com.capstone.xor.entity.FileMeta;
+import com.capstone.xor.entity.VersionJob;
+import com.capstone.xor.entity.VersionJobStatus;
+import com.capstone.xor.exception.ResourceNotFoundException;
+import com.capstone.xor.repository.VersionJobRepository;
+import com.capstone.xor.util.ChunkStore;
+import com.capstone.xor.util.FileUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 비동기 버전 작업 상태 관리 및 실행
+ * 작업은 DB(version_jobs)에 저장되므로 서버가 재시작되어도 남아 있고, 선점(claim)은 조건부 UPDATE로 한 워커만 성공한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class VersionJobService {
+    private final VersionJobRepository versionJobRepository;
+    private final FileService fileService;
+    private final FileUtil fileUtil;
+    private final ChunkStore chunkStore;
+
+    // 이 횟수만큼 실패하면 FAILED로 두고 더 이상 재시도하지 않음
+    @Value("${file.version-job.max-attempts:5}")
+    private int maxAttempts;
+
+    // 재시도 대기 시간 (초, 시도 횟수만큼 곱해서 늘림)
+    @Value("${file.version-job.retry-delay-seconds:30}")
+    private long retryDelaySeconds;
+
+    // 이 시간(분) 넘게 RUNNING인 작업은 중단된 것으로 보고 다시 대기 상태로
+    @Value("${file.version-job.stale-minutes:30}")
+    private long staleMinutes;
+
+    /**
+     * 실행할 차례가 된 PENDING 작업을 최대 limit개 선점
+     *
+     * @param limit 선점할 최대 작업 수
+     * @return 이 워커가 선점한 작업 ID 목록
+     */
+    @Transactional
+    public List<Long> claimReady(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        versionJobRepository.requeueStale(now.minusMinutes(staleMinutes), now);
+
+        List<Long> claimed = new ArrayList<>();
+        List<VersionJob> ready = versionJobRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                VersionJobStatus.PENDING, now, PageRequest.of(0, limit));
+        for (VersionJob job : ready) {
+            if (versionJobRepository.claim(job.getId(), now) == 1) {
+                claimed.add(job.getId());
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 작업 실행: 보존해 둔 이전/새 내용을 내려받아 diff 및 버전을 저장하고 DONE으로 표시
+     *
+     * @param jobId 작업 ID
+     * @return 완료 후 삭제할 작업용 임시 객체 prefix
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public String run(Long jobId) throws IOException {
+        VersionJob job = versionJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("버전 작업을 찾을 수 없습니다: " + jobId));
+        FileMeta fileMeta = job.getFileMeta();
+        String suffix = suffixOf(fileMeta.getOriginalName());
+
+        File source = null;
+        File target = null;
+        try {
+            source = fetch(job.getSourceKey(), job.getSourceManifestKey(), suffix);
+            target = fetch(job.getTargetKey(), job.getTargetManifestKey(), suffix);
+            fileService.storeVersion(fileMeta, job.getFileBaseKey(), job.getVersionNumber(),
+                    source, target, job.getMimeType(), job.getTargetManifestKey());
+        } finally {
+            deleteQuietly(source);
+            deleteQuietly(target);
+        }
+
+        job.setStatus(VersionJobStatus.DONE);
+        job.setLastError(null);
+        job.setUpdatedAt(LocalDateTime.now());
+        System.out.println("[버전 작업] 완료: fileId " + fileMeta.getId() + ", v" + job.getVersionNumber());
+        return fileService.versionJobPrefixFor(job.getFileBaseKey(), job.getVersionNumber());
+    }
+
+    /**
+     * 실행 실패 기록: 재시도 횟수가 남아 있으면 대기 후 다시 PENDING, 아니면 보존해 둔 새 내용을 snapshot으로 저장하고 FAILED
+     *
+     * @return 더 이상 필요 없어진 작업용 임시 객체 prefix (재시도할 작업이면 null)
+     */
+    @Transactional
+    public String markFailed(Long jobId, Exception error) {
+        VersionJob job = versionJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        job.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+        job.setUpdatedAt(now);
+        System.err.println("[버전 작업] 실패: jobId " + jobId + ", 시도 " + job.getAttempts() + " - " + message);
+        if (job.getAttempts() < maxAttempts) {
+            job.setStatus(VersionJobStatus.PENDING);
+            job.setNextAttemptAt(now.plusSeconds(retryDelaySeconds * job.getAttempts()));
+            return null;
+        }
+
+        // 이 버전의 diff는 포기하되 내용은 잃지 않도록 snapshot으로 남김
+        // (저장 중 예외가 나면 트랜잭션이 롤백되어 RUNNING으로 남고, 중단된 작업으로 다시 대기 상태가 되어 재시도됨)
+        fileService.storeFallbackSnapshot(job.getFileMeta(), job.getFileBaseKey(), job.getVersionNumber(),
+                job.getTargetKey(), job.getTargetManifestKey());
+        job.setStatus(VersionJobStatus.FAILED);
+        return fileService.versionJobPrefixFor(job.getFileBaseKey(), job.getVersionNumber());
+    }
+
+    // 작업용 내용을 로컬 임시 파일로 (확장자 유지, OOXML 판별에 필요)
+    private File fetch(String s3Key, String manifestKey, String suffix) {
+        return manifestKey != null
+                ? chunkStore.downloadToTempFile(manifestKey, suffix)
+                : fileUtil.downloadFromS3(s3Key);
+    }
+
+    private String suffixOf(String fileName) {
+        int dotIdx = fileName.lastIndexOf('.');
+        return dotIdx != -1 ? fileName.substring(dotIdx) : "";
+    }
+
+    private void deleteQuietly(File file) {
+        if (file != null && !file.delete() && file.exists()) {
+            System.err.println("임시 파일 삭제 실패: " + file.getAbsolutePath());
+        }
+    }
+}
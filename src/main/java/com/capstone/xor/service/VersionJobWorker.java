@@ -0,0 +1,69 @@
+package com.capstone.xor.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 버전 작업 워커
+ * 주기적으로 DB에서 대기 중인 작업을 선점해 versionJobExecutor에서 실행한다. 여러 서버에서 동시에 돌아도 작업은 한 번만 실행된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class VersionJobWorker {
+    private final VersionJobService versionJobService;
+    private final FileService fileService;
+    private final ExecutorService versionJobExecutor;
+
+    // 동시에 실행할 작업 수 (versionJobExecutor 크기와 같음)
+    @Value("${file.version-job.workers:2}")
+    private int workers;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    @Scheduled(fixedDelayString = "${file.version-job.poll-interval-ms:2000}")
+    public void poll() {
+        int free = workers - running.get();
+        if (free <= 0) {
+            return;
+        }
+        for (Long jobId : versionJobService.claimReady(free)) {
+            running.incrementAndGet();
+            versionJobExecutor.execute(() -> {
+                try {
+                    process(jobId);
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void process(Long jobId) {
+        String stagingPrefix;
+        try {
+            stagingPrefix = versionJobService.run(jobId);
+        } catch (Exception e) {
+            try {
+                stagingPrefix = versionJobService.markFailed(jobId, e);
+            } catch (RuntimeException markError) {
+                // 기록하지 못한 작업은 RUNNING으로 남았다가 중단된 작업으로 다시 대기 상태가 됨
+                System.err.println("[버전 작업] 실패 처리 오류: jobId " + jobId + " - " + markError.getMessage());
+                return;
+            }
+        }
+        if (stagingPrefix == null) {
+            return;
+        }
+        // 작업용 임시 객체 정리 (실패해도 버전은 이미 저장됨)
+        try {
+            fileService.deleteAllS3ObjectsWithPrefix(stagingPrefix);
+        } catch (RuntimeException e) {
+            System.err.println("[버전 작업] 임시 객체 정리 실패: " + stagingPrefix + " - " + e.getMessage());
+        }
+    }
+}
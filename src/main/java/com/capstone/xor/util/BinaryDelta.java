@@ -0,0 +1,170 @@
+package com.capstone.xor.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 바이너리 파트용 copy/insert delta (rsync 방식 rolling hash)
+ * 이전 내용을 BLOCK_SIZE 블록으로 색인하고, 새 내용을 한 바이트씩 굴리며 일치하는 블록을 찾아
+ * "이전 내용의 구간 복사(COPY)"와 "새 바이트 삽입(INSERT)" 명령으로 기록한다.
+ *
+ * 형식: MAGIC, 결과 길이(varint), 명령 반복
+ * - COPY: 0x01, offset(varint), length(varint)
+ * - INSERT: 0x02, length(varint), 바이트
+ */
+public final class BinaryDelta {
+
+    private static final byte[] MAGIC = {'X', 'B', 'D', '1'};
+    private static final int OP_COPY = 0x01;
+    private static final int OP_INSERT = 0x02;
+
+    private static final int BLOCK_SIZE = 32;
+    private static final int PRIME = 31;
+    // PRIME^(BLOCK_SIZE-1), 윈도우에서 빠지는 바이트 제거용
+    private static final int OUT_FACTOR;
+
+    static {
+        int factor = 1;
+        for (int i = 0; i < BLOCK_SIZE - 1; i++) {
+            factor *= PRIME;
+        }
+        OUT_FACTOR = factor;
+    }
+
+    private BinaryDelta() {
+    }
+
+    /**
+     * base -> target delta 생성
+     */
+    public static byte[] encode(byte[] base, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(MAGIC);
+        writeVarint(out, target.length);
+
+        // 블록 해시 -> 이전 내용 offset (같은 해시는 처음 블록만 사용)
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int off = 0; off + BLOCK_SIZE <= base.length; off += BLOCK_SIZE) {
+            index.putIfAbsent(hash(base, off), off);
+        }
+
+        int pos = 0;
+        int literalStart = 0;
+        int hash = target.length >= BLOCK_SIZE ? hash(target, 0) : 0;
+        while (!index.isEmpty() && pos + BLOCK_SIZE <= target.length) {
+            Integer candidate = index.get(hash);
+            if (candidate != null
+                    && Arrays.equals(base, candidate, candidate + BLOCK_SIZE, target, pos, pos + BLOCK_SIZE)) {
+                // 일치 구간을 앞뒤로 최대한 확장
+                int baseStart = candidate;
+                int targetStart = pos;
+                while (baseStart > 0 && targetStart > literalStart && base[baseStart - 1] == target[targetStart - 1]) {
+                    baseStart--;
+                    targetStart--;
+                }
+                int baseEnd = candidate + BLOCK_SIZE;
+                int targetEnd = pos + BLOCK_SIZE;
+                while (baseEnd < base.length && targetEnd < target.length && base[baseEnd] == target[targetEnd]) {
+                    baseEnd++;
+                    targetEnd++;
+                }
+                writeInsert(out, target, literalStart, targetStart);
+                out.write(OP_COPY);
+                writeVarint(out, baseStart);
+                writeVarint(out, baseEnd - baseStart);
+
+                pos = targetEnd;
+                literalStart = targetEnd;
+                if (pos + BLOCK_SIZE <= target.length) {
+                    hash = hash(target, pos);
+                }
+                continue;
+            }
+            if (pos + BLOCK_SIZE < target.length) {
+                hash = (hash - (target[pos] & 0xff) * OUT_FACTOR) * PRIME + (target[pos + BLOCK_SIZE] & 0xff);
+            }
+            pos++;
+        }
+        writeInsert(out, target, literalStart, target.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * base에 delta를 적용해 원래 내용 복원
+     */
+    public static byte[] apply(byte[] base, byte[] delta) {
+        if (delta.length < MAGIC.length || !Arrays.equals(delta, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IllegalArgumentException("binary delta 형식이 아닙니다.");
+        }
+        int[] cursor = {MAGIC.length};
+        int length = readVarint(delta, cursor);
+        byte[] result = new byte[length];
+        int written = 0;
+        while (cursor[0] < delta.length) {
+            int op = delta[cursor[0]++];
+            if (op == OP_COPY) {
+                int offset = readVarint(delta, cursor);
+                int count = readVarint(delta, cursor);
+                checkRange(offset, count, base.length);
+                checkRange(written, count, length);
+                System.arraycopy(base, offset, result, written, count);
+                written += count;
+            } else if (op == OP_INSERT) {
+                int count = readVarint(delta, cursor);
+                checkRange(cursor[0], count, delta.length);
+                checkRange(written, count, length);
+                System.arraycopy(delta, cursor[0], result, written, count);
+                cursor[0] += count;
+                written += count;
+            } else {
+                throw new IllegalArgumentException("알 수 없는 binary delta 명령: " + op);
+            }
+        }
+        if (written != length) {
+            throw new IllegalArgumentException("binary delta 길이 불일치: " + written + " != " + length);
+        }
+        return result;
+    }
+
+    private static int hash(byte[] data, int offset) {
+        int h = 0;
+        for (int i = offset; i < offset + BLOCK_SIZE; i++) {
+            h = h * PRIME + (data[i] & 0xff);
+        }
+        return h;
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, byte[] data, int from, int to) {
+        if (to <= from) return;
+        out.write(OP_INSERT);
+        writeVarint(out, to - from);
+        out.write(data, from, to - from);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] cursor) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (cursor[0] >= data.length) break;
+            int b = data[cursor[0]++] & 0xff;
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("손상된 binary delta (varint)");
+    }
+
+    private static void checkRange(int offset, int count, int limit) {
+        if (offset < 0 || count < 0 || offset > limit - count) {
+            throw new IllegalArgumentException("손상된 binary delta (범위 초과)");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.capstone.xor.util;
+
+import com.capstone.xor.entity.ChunkManifest;
+import com.capstone.xor.entity.ChunkReference;
+import com.capstone.xor.repository.ChunkManifestRepository;
+import com.capstone.xor.repository.ChunkReferenceRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 참조 수가 0이 된 공유 청크 삭제
+ * 청크 행을 잠근 채로 S3 객체와 행을 지우므로, 같은 청크를 다시 참조하려는 업로드는 삭제가 끝난 뒤
+ * 새 행을 만들고 청크를 다시 업로드한다. (ChunkStore.store 참고)
+ * 참조 수 도입 전에 저장된 manifest는 첫 삭제 전에 참조 수에 반영해, 그 manifest가 쓰는 청크가 지워지지 않게 한다.
+ */
+@Component
+public class ChunkGarbageCollector {
+    // 한 번에 잠그고 삭제할 청크 수 (DeleteObjects 한 번 분량)
+    private static final int BATCH_SIZE = 1000;
+
+    private final ChunkReferenceRepository chunkReferenceRepository;
+    private final ChunkManifestRepository chunkManifestRepository;
+    private final FileUtil fileUtil;
+    // 커밋 직후(afterCommit)에도 호출되므로 항상 새 트랜잭션에서 실행
+    private final TransactionTemplate newTransaction;
+
+    private volatile boolean legacyManifestsRegistered;
+
+    public ChunkGarbageCollector(ChunkReferenceRepository chunkReferenceRepository,
+                                 ChunkManifestRepository chunkManifestRepository,
+                                 FileUtil fileUtil,
+                                 PlatformTransactionManager transactionManager) {
+        this.chunkReferenceRepository = chunkReferenceRepository;
+        this.chunkManifestRepository = chunkManifestRepository;
+        this.fileUtil = fileUtil;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 후보 청크 중 참조 수가 0인 청크 삭제 (참조를 줄인 트랜잭션의 커밋 후에 호출)
+     *
+     * @param hashes 참조가 줄어든 청크 해시
+     * @return 삭제한 청크 수
+     */
+    public int collect(Collection<String> hashes) {
+        registerLegacyManifests();
+        List<String> sorted = new ArrayList<>(new TreeSet<>(hashes));
+        int deleted = 0;
+        for (int from = 0; from < sorted.size(); from += BATCH_SIZE) {
+            List<String> batch = sorted.subList(from, Math.min(from + BATCH_SIZE, sorted.size()));
+            deleted += newTransaction.execute(status -> deleteUnreferenced(batch));
+        }
+        return deleted;
+    }
+
+    // 커밋 직후 GC가 실패(서버 종료 등)해 남은 참조 0 청크 정리
+    @Scheduled(fixedDelayString = "${file.chunking.gc-interval-ms:600000}")
+    public void sweep() {
+        List<String> hashes = chunkReferenceRepository.findUnreferenced(PageRequest.of(0, BATCH_SIZE));
+        if (!hashes.isEmpty()) {
+            System.out.printf("[청크 GC] 남은 참조 0 청크 %d개 정리%n", collect(hashes));
+        }
+    }
+
+    // 해시 순서로 잠가 업로드(참조 증가도 해시 순서)와 교착되지 않게 함
+    private int deleteUnreferenced(List<String> sortedHashes) {
+        List<ChunkReference> unreferenced = chunkReferenceRepository.findUnreferencedForUpdate(sortedHashes);
+        if (unreferenced.isEmpty()) {
+            return 0;
+        }
+        fileUtil.deleteFromS3(unreferenced.stream().map(ref -> ChunkStore.chunkKeyFor(ref.getHash())).toList());
+        chunkReferenceRepository.deleteAllInBatch(unreferenced);
+        return unreferenced.size();
+    }
+
+    /**
+     * 참조 수 도입 전에 저장되어 DB(파일/버전/버전 작업)가 참조하는 manifest를 참조 수에 반영 (서버당 한 번)
+     * manifest마다 별도 트랜잭션이며, 다른 서버가 먼저 반영한 manifest는 건너뛴다.
+     */
+    private synchronized void registerLegacyManifests() {
+        if (legacyManifestsRegistered) {
+            return;
+        }
+        List<String> manifestKeys = chunkManifestRepository.findUnregisteredManifestKeys();
+        for (String manifestKey : manifestKeys) {
+            List<ChunkStore.ChunkRef> chunks;
+            try {
+                chunks = ChunkStore.parseManifest(manifestKey, fileUtil.downloadBytesFromS3(manifestKey));
+            } catch (RuntimeException e) {
+                // 읽을 수 없는 manifest는 지킬 청크도 알 수 없음
+                System.err.println("[청크 GC] 기존 manifest 읽기 실패: " + manifestKey + " - " + e.getMessage());
+                continue;
+            }
+            try {
+                newTransaction.executeWithoutResult(status -> {
+                    if (chunkManifestRepository.existsById(manifestKey)) {
+                        return;
+                    }
+                    chunkManifestRepository.saveAndFlush(new ChunkManifest(manifestKey));
+                    for (String hash : new TreeSet<>(chunks.stream().map(ChunkStore.ChunkRef::hash).toList())) {
+                        chunkReferenceRepository.increment(hash);
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // 다른 서버가 동시에 반영함
+            }
+        }
+        if (!manifestKeys.isEmpty()) {
+            System.out.printf("[청크 GC] 기존 manifest %d개 참조 수 반영%n", manifestKeys.size());
+        }
+        legacyManifestsRegistered = true;
+    }
+}
@@ -0,0 +1,292 @@
+package com.capstone.xor.util;
+
+import com.capstone.xor.entity.ChunkManifest;
+import com.capstone.xor.repository.ChunkManifestRepository;
+import com.capstone.xor.repository.ChunkReferenceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * content-defined chunk 저장소
+ * 파일을 FastCDC로 나눈 청크를 SHA-256 키(chunks/ab/abcd...)로 한 번만 저장하고,
+ * 파일 내용은 청크 순서를 기록한 manifest 객체로 표현한다.
+ * 청크는 사용자/폴더 구분 없이 공유되므로 같은 내용의 재업로드나 복사본은 새 청크만 업로드된다.
+ * 청크마다 참조하는 manifest 수(chunk_refs)를 세고, 파일/폴더 삭제로 0이 된 청크는 커밋 후 삭제한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChunkStore {
+    private static final String CHUNK_PREFIX = "chunks/";
+    private static final String MANIFEST_MIME = "text/plain";
+
+    private final FileUtil fileUtil;
+    private final ChunkReferenceRepository chunkReferenceRepository;
+    private final ChunkManifestRepository chunkManifestRepository;
+    private final ChunkGarbageCollector chunkGarbageCollector;
+    private final ExecutorService s3TransferExecutor;
+
+    // S3 동시 전송 수 (청크 업로드 중 메모리에 들고 있는 청크 수 제한에 사용)
+    @Value("${file.transfer.concurrency:8}")
+    private int transferConcurrency;
+
+    @Value("${file.chunking.min-bytes:262144}")
+    private int minChunkSize;
+
+    @Value("${file.chunking.avg-bytes:1048576}")
+    private int avgChunkSize;
+
+    @Value("${file.chunking.max-bytes:4194304}")
+    private int maxChunkSize;
+
+    /**
+     * manifest 한 줄: 청크 해시와 크기
+     */
+    public record ChunkRef(String hash, long size) {
+    }
+
+    /**
+     * 로컬 파일을 청크로 나눠 없는 청크만 업로드하고 manifest를 manifestKey에 저장
+     * 청크 참조 수는 호출자의 트랜잭션에서 늘리므로 업로드가 롤백되면 참조도 함께 취소된다.
+     * 참조 수가 1이 된 청크(처음 참조되거나 GC 대기 중이던 청크)만 업로드하며, 업로드는 s3TransferExecutor에서 병렬로 실행한다.
+     *
+     * @param manifestKey manifest를 저장할 S3 키
+     * @param file        저장할 로컬 파일
+     * @return 새로 업로드한 청크 바이트 수
+     */
+    @Transactional
+    public long store(String manifestKey, File file) {
+        if (chunkManifestRepository.existsById(manifestKey)) {
+            throw new IllegalStateException("이미 저장된 manifest입니다: " + manifestKey);
+        }
+        // 1. 해시만 먼저 계산 (청크 내용은 업로드할 때 파일을 다시 읽음)
+        List<ChunkRef> manifest = new ArrayList<>();
+        split(file, chunk -> manifest.add(new ChunkRef(sha256(chunk), chunk.length)));
+
+        // 2. 참조 수 증가, 해시 순서로 잠가 동시 업로드/GC와 교착되지 않게 함
+        chunkManifestRepository.save(new ChunkManifest(manifestKey));
+        Set<String> toUpload = new HashSet<>();
+        for (String hash : new TreeSet<>(manifest.stream().map(ChunkRef::hash).toList())) {
+            chunkReferenceRepository.increment(hash);
+            if (chunkReferenceRepository.findRefCount(hash) == 1) {
+                toUpload.add(hash);
+            }
+        }
+
+        // 3. 새 청크만 병렬 업로드 (동시에 메모리에 있는 청크는 전송 수의 2배까지)
+        long uploaded = 0;
+        if (!toUpload.isEmpty()) {
+            Semaphore inFlight = new Semaphore(transferConcurrency * 2);
+            List<CompletableFuture<Void>> uploads = new ArrayList<>();
+            long[] bytes = {0};
+            split(file, chunk -> {
+                String hash = sha256(chunk);
+                // 파일 안에서 같은 청크가 반복되면 한 번만 업로드
+                if (!toUpload.remove(hash)) return;
+                inFlight.acquireUninterruptibly();
+                bytes[0] += chunk.length;
+                uploads.add(CompletableFuture.runAsync(() -> fileUtil.uploadToS3(chunkKeyFor(hash),
+                                new ByteArrayInputStream(chunk), chunk.length, "application/octet-stream"), s3TransferExecutor)
+                        .whenComplete((result, error) -> inFlight.release()));
+            });
+            awaitAll(uploads);
+            uploaded = bytes[0];
+        }
+
+        byte[] manifestBytes = toText(manifest).getBytes(StandardCharsets.UTF_8);
+        fileUtil.uploadToS3(manifestKey, new ByteArrayInputStream(manifestBytes), manifestBytes.length, MANIFEST_MIME);
+        System.out.printf("[청크] %s: 청크 %d개, 신규 업로드 %d / %d 바이트%n",
+                manifestKey, manifest.size(), uploaded, file.length());
+        return uploaded;
+    }
+
+    /**
+     * prefix 아래 manifest들의 청크 참조 해제 (파일/폴더 삭제 시, manifest 객체를 지우기 전에 호출)
+     * 참조 수는 호출자의 트랜잭션에서 줄이고, 0이 된 청크의 삭제는 커밋 후 ChunkGarbageCollector가 처리한다.
+     *
+     * @param prefix 삭제할 파일 또는 폴더의 S3 key prefix
+     */
+    @Transactional
+    public void release(String prefix) {
+        List<String> manifestKeys = chunkManifestRepository.findKeysByPattern(escapeLike(prefix) + "%");
+        if (manifestKeys.isEmpty()) {
+            return;
+        }
+        // 버전별 manifest를 병렬로 읽음
+        List<CompletableFuture<List<ChunkRef>>> reads = new ArrayList<>();
+        for (String manifestKey : manifestKeys) {
+            reads.add(CompletableFuture.supplyAsync(() -> readManifest(manifestKey), s3TransferExecutor));
+        }
+        // 청크별로 참조하던 manifest 수만큼 감소 (해시 순서)
+        Map<String, Long> released = new TreeMap<>();
+        for (int i = 0; i < reads.size(); i++) {
+            List<ChunkRef> chunks;
+            try {
+                chunks = reads.get(i).join();
+            } catch (CompletionException e) {
+                // 읽을 수 없는 manifest의 청크는 참조를 줄이지 않음 (삭제되지 않고 남음)
+                System.err.println("[청크] manifest 읽기 실패, 참조 해제 생략: " + manifestKeys.get(i) + " - " + e.getCause());
+                continue;
+            }
+            for (String hash : new HashSet<>(chunks.stream().map(ChunkRef::hash).toList())) {
+                released.merge(hash, 1L, Long::sum);
+            }
+        }
+        released.forEach(chunkReferenceRepository::decrement);
+        chunkManifestRepository.deleteAllByIdInBatch(manifestKeys);
+        System.out.printf("[청크] %s: manifest %d개, 청크 %d개 참조 해제%n", prefix, manifestKeys.size(), released.size());
+
+        List<String> candidates = new ArrayList<>(released.keySet());
+        if (candidates.isEmpty()) {
+            return;
+        }
+        // 참조 해제가 커밋된 뒤에만 청크 삭제 (롤백되면 청크는 그대로 필요)
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    collectQuietly(prefix, candidates);
+                }
+            });
+        } else {
+            collectQuietly(prefix, candidates);
+        }
+    }
+
+    // 삭제 실패로 남은 참조 0 청크는 주기 GC가 정리
+    private void collectQuietly(String prefix, List<String> candidates) {
+        try {
+            chunkGarbageCollector.collect(candidates);
+        } catch (RuntimeException e) {
+            System.err.println("[청크 GC] 삭제 실패: " + prefix + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * manifest가 가리키는 청크를 순서대로 이어 읽는 스트림 (호출자가 닫아야 함)
+     * 청크는 읽을 차례가 될 때 하나씩 연다.
+     */
+    public InputStream open(String manifestKey) {
+        Iterator<ChunkRef> chunks = readManifest(manifestKey).iterator();
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return chunks.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return fileUtil.openS3Stream(chunkKeyFor(chunks.next().hash()));
+            }
+        });
+    }
+
+    // manifest가 있으면 청크에서, 없으면 전체 객체에서 내용을 읽는 스트림 (호출자가 닫아야 함)
+    public InputStream openContent(String s3Key, String manifestKey) {
+        return manifestKey != null ? open(manifestKey) : fileUtil.openS3Stream(s3Key);
+    }
+
+    // manifest 내용을 로컬 임시 파일로 복원 (확장자 유지)
+    public File downloadToTempFile(String manifestKey, String suffix) {
+        try {
+            File tempFile = File.createTempFile("chunked-", suffix);
+            try (InputStream in = open(manifestKey)) {
+                Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                tempFile.delete();
+                throw e;
+            }
+            return tempFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException("청크 복원 실패: " + manifestKey, e);
+        }
+    }
+
+    public List<ChunkRef> readManifest(String manifestKey) {
+        return parseManifest(manifestKey, fileUtil.downloadBytesFromS3(manifestKey));
+    }
+
+    static List<ChunkRef> parseManifest(String manifestKey, byte[] content) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        List<ChunkRef> chunks = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (line.isBlank()) continue;
+            String[] parts = line.trim().split(" ");
+            if (parts.length != 2) {
+                throw new IllegalStateException("잘못된 manifest 형식: " + manifestKey);
+            }
+            chunks.add(new ChunkRef(parts[0], Long.parseLong(parts[1])));
+        }
+        return chunks;
+    }
+
+    private String toText(List<ChunkRef> manifest) {
+        StringBuilder sb = new StringBuilder();
+        for (ChunkRef ref : manifest) {
+            sb.append(ref.hash()).append(' ').append(ref.size()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void split(File file, FastCdc.ChunkHandler handler) {
+        FastCdc cdc = new FastCdc(minChunkSize, avgChunkSize, maxChunkSize);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            cdc.split(in, handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("청크 저장 실패: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<Void>> uploads) {
+        try {
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // LIKE 특수문자 이스케이프 (ESCAPE '!')
+    private String escapeLike(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    // 해시 앞 2자리로 prefix를 나눠 한 prefix에 객체가 몰리지 않게 함
+    static String chunkKeyFor(String hash) {
+        return CHUNK_PREFIX + hash.substring(0, 2) + "/" + hash;
+    }
+
+    private String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 알고리즘을 찾을 수 없습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.capstone.xor.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * FastCDC 기반 content-defined chunking
+ * gear rolling hash로 경계를 정하므로 앞부분에 바이트가 추가/삭제되어도 이후 청크 경계가 유지된다.
+ * 평균 크기 전까지는 엄격한 마스크, 이후에는 느슨한 마스크를 사용해 청크 크기를 평균 근처로 모은다(normalized chunking).
+ */
+public class FastCdc {
+
+    // 고정 시드 gear 테이블 (서버 간/재시작 후에도 같은 경계를 얻기 위해 시드 고정)
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x58_4F_52_43_44_43L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * 청크 단위 처리 콜백
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+        void handle(byte[] chunk) throws IOException;
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long strictMask;
+    private final long looseMask;
+
+    public FastCdc(int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize > avgSize || avgSize > maxSize) {
+            throw new IllegalArgumentException("청크 크기는 0 < min <= avg <= max 이어야 합니다.");
+        }
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        int bits = 31 - Integer.numberOfLeadingZeros(avgSize);
+        this.strictMask = highBitsMask(bits + 1);
+        this.looseMask = highBitsMask(bits - 1);
+    }
+
+    /**
+     * 스트림을 끝까지 읽으며 청크를 순서대로 handler에 전달
+     */
+    public void split(InputStream in, ChunkHandler handler) throws IOException {
+        byte[] buffer = new byte[maxSize * 2];
+        int filled = 0;
+        boolean eof = false;
+        while (true) {
+            while (!eof && filled < maxSize) {
+                int read = in.read(buffer, filled, buffer.length - filled);
+                if (read == -1) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+            }
+            if (filled == 0) {
+                return;
+            }
+            int cut = cutPoint(buffer, filled);
+            handler.handle(Arrays.copyOf(buffer, cut));
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled -= cut;
+        }
+    }
+
+    // buffer[0, length)에서 다음 청크 경계 위치
+    int cutPoint(byte[] buffer, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        int limit = Math.min(length, maxSize);
+        int normal = Math.min(limit, avgSize);
+        long fingerprint = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[buffer[i] & 0xff];
+            if ((fingerprint & strictMask) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[buffer[i] & 0xff];
+            if ((fingerprint & looseMask) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    // 상위 비트가 최근 64바이트 전체에 의존하므로 상위 비트로 마스크 구성
+    private static long highBitsMask(int bits) {
+        return bits <= 0 ? 0 : -1L << (64 - bits);
+    }
+}
@@ -1,26 +1,44 @@
 package com.capstone.xor.util;
 
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 @Component
 @RequiredArgsConstructor
 public class FileUtil {
+    // S3 멀티파트 업로드의 최소 part 크기 (마지막 part 제외)
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
     private final AmazonS3 amazonS3;
+    private final ExecutorService s3PartExecutor;
 
     @Value("${cloud.aws.s3.bucket}")
     private String bucketName;
 
+    // 이 크기 이상인 파일은 멀티파트 업로드 / 범위 GET 병렬 다운로드 (바이트)
+    @Value("${file.transfer.multipart-threshold-bytes:67108864}")
+    private long multipartThreshold;
+
+    // 멀티파트 part 크기 및 범위 GET 단위 (바이트, 최소 5MB)
+    @Value("${file.transfer.part-size-bytes:16777216}")
+    private long partSize;
+
     // multipartfile 기반 S3 업로드
     public void uploadToS3(String s3Key, MultipartFile file) throws IOException {
         ObjectMetadata metadata = new ObjectMetadata();
@@ -37,6 +55,80 @@ public class FileUtil {
         amazonS3.putObject(bucketName, s3Key, is, metadata);
     }
 
+    // 로컬 파일 기반 S3 업로드 (큰 파일은 part 병렬 멀티파트 업로드)
+    public void uploadToS3(String s3Key, File file, String mimeType) {
+        if (file.length() >= multipartThreshold) {
+            multipartUpload(s3Key, file, mimeType);
+            return;
+        }
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(mimeType);
+        metadata.setContentLength(file.length());
+        try (InputStream is = new FileInputStream(file)) {
+            amazonS3.putObject(bucketName, s3Key, is, metadata);
+        } catch (IOException e) {
+            throw new UncheckedIOException("S3 업로드 실패: " + s3Key, e);
+        }
+    }
+
+    /**
+     * 멀티파트 업로드: 파일을 part 크기로 나눠 s3PartExecutor에서 병렬 업로드
+     * 하나라도 실패하면 업로드를 중단(abort)해 미완성 part가 남지 않게 한다.
+     */
+    private void multipartUpload(String s3Key, File file, String mimeType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(mimeType);
+        String uploadId = amazonS3.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, s3Key, metadata)).getUploadId();
+        try {
+            long length = file.length();
+            long size = Math.max(partSize, MIN_PART_SIZE);
+            List<CompletableFuture<PartETag>> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < length; offset += size, partNumber++) {
+                UploadPartRequest request = new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(s3Key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withFile(file)
+                        .withFileOffset(offset)
+                        .withPartSize(Math.min(size, length - offset));
+                parts.add(CompletableFuture.supplyAsync(
+                        () -> amazonS3.uploadPart(request).getPartETag(), s3PartExecutor));
+            }
+            List<PartETag> partETags = new ArrayList<>();
+            for (CompletableFuture<PartETag> part : parts) {
+                partETags.add(await(part));
+            }
+            amazonS3.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, s3Key, uploadId, partETags));
+        } catch (RuntimeException e) {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, s3Key, uploadId));
+            throw e;
+        }
+    }
+
+    // 업로드된 multipartfile을 로컬 임시 파일로 저장 (확장자 유지)
+    public File saveToTempFile(MultipartFile file, String extension) throws IOException {
+        try (InputStream is = file.getInputStream()) {
+            return saveToTempFile(is, extension);
+        }
+    }
+
+    // 스트림을 로컬 임시 파일로 저장 (확장자 유지, 스트림은 호출자가 닫음)
+    public File saveToTempFile(InputStream is, String extension) throws IOException {
+        String suffix = (extension == null || extension.isEmpty()) ? "" : "." + extension;
+        File tempFile = File.createTempFile("upload-", suffix);
+        try {
+            Files.copy(is, tempFile.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
     public boolean isOOXMLFile(File file) {
         String name = file.getName().toLowerCase();
         return name.endsWith(".docx") || name.endsWith(".xlsx") || name.endsWith(".pptx");
@@ -73,11 +165,9 @@ public class FileUtil {
 
 
 
+    // S3 객체를 로컬 임시 파일로 다운로드 (큰 객체는 범위 GET 병렬 다운로드)
     public File downloadFromS3(String s3Key) {
         try {
-            S3Object s3Object = amazonS3.getObject(bucketName, s3Key);
-            InputStream inputStream = s3Object.getObjectContent();
-
             // 임시 파일 생성 (확장자 유지)
             String originalName = new File(s3Key).getName();
             String suffix = "";
@@ -85,6 +175,20 @@ public class FileUtil {
             if(dotIdx != -1) suffix = originalName.substring(dotIdx);
             File tempFile = File.createTempFile("s3download-", suffix);
 
+            long contentLength = amazonS3.getObjectMetadata(bucketName, s3Key).getContentLength();
+            if (contentLength >= multipartThreshold) {
+                try {
+                    rangedDownload(s3Key, contentLength, tempFile);
+                } catch (IOException | RuntimeException e) {
+                    tempFile.delete();
+                    throw e;
+                }
+                return tempFile;
+            }
+
+            S3Object s3Object = amazonS3.getObject(bucketName, s3Key);
+            InputStream inputStream = s3Object.getObjectContent();
+
             try (FileOutputStream fos = new FileOutputStream(tempFile)) {
                 byte[] buffer = new byte[8192];
                 int bytesRead;
@@ -99,6 +203,75 @@ public class FileUtil {
         }
     }
 
+    /**
+     * 범위 GET 병렬 다운로드: part 크기 구간마다 요청을 나눠 파일의 해당 위치에 바로 기록
+     */
+    private void rangedDownload(String s3Key, long contentLength, File target) throws IOException {
+        long size = Math.max(partSize, MIN_PART_SIZE);
+        try (RandomAccessFile raf = new RandomAccessFile(target, "rw")) {
+            raf.setLength(contentLength);
+            FileChannel channel = raf.getChannel();
+            List<CompletableFuture<Void>> ranges = new ArrayList<>();
+            for (long start = 0; start < contentLength; start += size) {
+                long rangeStart = start;
+                long rangeEnd = Math.min(start + size, contentLength) - 1;
+                ranges.add(CompletableFuture.runAsync(
+                        () -> downloadRange(s3Key, rangeStart, rangeEnd, channel), s3PartExecutor));
+            }
+            for (CompletableFuture<Void> range : ranges) {
+                await(range);
+            }
+        }
+    }
+
+    // [start, end] 구간을 받아 채널의 같은 위치에 기록 (위치 지정 write라 스레드 간 충돌 없음)
+    private void downloadRange(String s3Key, long start, long end, FileChannel channel) {
+        GetObjectRequest request = new GetObjectRequest(bucketName, s3Key).withRange(start, end);
+        try (InputStream in = amazonS3.getObject(request).getObjectContent()) {
+            byte[] buffer = new byte[64 * 1024];
+            long position = start;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("S3 범위 다운로드 실패: " + s3Key + " [" + start + "-" + end + "]", e);
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> transfer) {
+        try {
+            return transfer.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // S3 객체를 메모리로 다운로드 (diff 등 작은 객체용)
+    public byte[] downloadBytesFromS3(String s3Key) {
+        try (InputStream inputStream = amazonS3.getObject(bucketName, s3Key).getObjectContent()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("S3 다운로드 실패: " + s3Key, e);
+        }
+    }
+
+    // S3 객체 존재 여부 확인 (HEAD 요청)
+    public boolean existsInS3(String s3Key) {
+        return amazonS3.doesObjectExist(bucketName, s3Key);
+    }
+
+    // S3 객체 스트림 열기 (호출자가 닫아야 함)
+    public InputStream openS3Stream(String s3Key) {
+        return amazonS3.getObject(bucketName, s3Key).getObjectContent();
+    }
+
     public File unzipToTempDir(File zipFile) throws IOException {
         File tempDir = null;
         try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
@@ -182,4 +355,29 @@ public class FileUtil {
     public void deleteFromS3(String key) {
         amazonS3.deleteObject(bucketName, key);
     }
+
+    /**
+     * 여러 S3 객체 삭제 (1000개 단위 DeleteObjects)
+     * 일부 키만 실패하면 실패한 키를 기록하고 나머지 삭제 결과는 유지
+     *
+     * @return 삭제한 객체 수
+     */
+    public int deleteFromS3(List<String> keys) {
+        int deleted = 0;
+        for (int from = 0; from < keys.size(); from += 1000) {
+            List<DeleteObjectsRequest.KeyVersion> batch = keys.subList(from, Math.min(from + 1000, keys.size())).stream()
+                    .map(DeleteObjectsRequest.KeyVersion::new)
+                    .toList();
+            try {
+                amazonS3.deleteObjects(new DeleteObjectsRequest(bucketName).withKeys(batch).withQuiet(true));
+                deleted += batch.size();
+            } catch (MultiObjectDeleteException e) {
+                for (MultiObjectDeleteException.DeleteError error : e.getErrors()) {
+                    System.err.printf("[S3] 삭제 실패: %s (%s)%n", error.getKey(), error.getMessage());
+                }
+                deleted += batch.size() - e.getErrors().size();
+            }
+        }
+        return deleted;
+    }
 }
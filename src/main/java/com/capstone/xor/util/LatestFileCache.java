@@ -0,0 +1,240 @@
+package com.capstone.xor.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * S3 latest 객체의 로컬 사본 캐시
+ * 업데이트 시 이전 버전을 S3에서 다시 내려받지 않도록 마지막으로 업로드된 파일을 보관한다.
+ * 캐시된 사본은 FileMeta의 해시와 일치할 때만 사용한다.
+ * 사본은 Handle로 빌려주며, 빌려준 동안 교체/제거된 사본은 Handle을 닫을 때 삭제한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class LatestFileCache {
+    private final FileUtil fileUtil;
+    private final ChunkStore chunkStore;
+
+    @Value("${file.latest-cache.dir:${java.io.tmpdir}/xor-latest-cache}")
+    private String cacheDir;
+
+    @Value("${file.latest-cache.max-entries:256}")
+    private int maxEntries;
+
+    // latestKey -> 캐시 항목 (접근 순서 유지, LRU)
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // pins: 사용 중인 Handle 수, removed: 캐시에서 빠졌지만 사용 중이라 아직 삭제하지 않은 사본
+    private static final class CachedFile {
+        private final File file;
+        private final String hash;
+        private int pins;
+        private boolean removed;
+
+        private CachedFile(File file, String hash) {
+            this.file = file;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 빌려준 latest 사본 (닫기 전까지는 다른 업로드가 교체/제거해도 파일이 삭제되지 않음)
+     */
+    public final class Handle implements AutoCloseable {
+        private final CachedFile entry;
+        private boolean closed;
+
+        private Handle(CachedFile entry) {
+            this.entry = entry;
+        }
+
+        public File file() {
+            return entry.file;
+        }
+
+        @Override
+        public void close() {
+            synchronized (entries) {
+                if (closed) return;
+                closed = true;
+                entry.pins--;
+                if (entry.removed && entry.pins == 0) {
+                    deleteQuietly(entry.file);
+                }
+            }
+        }
+    }
+
+    // 사본 파일 이름은 매번 새로 만들므로 이전 실행이 남긴 사본은 시작할 때 정리
+    @PostConstruct
+    void clearStaleFiles() {
+        File[] stale = new File(cacheDir).listFiles(File::isFile);
+        if (stale == null) return;
+        for (File file : stale) {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * 캐시된 latest 사본을 빌려주고, 없거나 해시가 다르면 S3에서 내려받는다.
+     * 내려받은 내용의 해시가 expectedHash와 같을 때만 캐시에 넣고, 다르면 이번 호출에서만 쓰고 닫을 때 삭제한다.
+     *
+     * @param latestKey    S3 latest 키
+     * @param manifestKey  청크 저장 모드일 때 최신 내용의 manifest 키 (없으면 null)
+     * @param expectedHash FileMeta에 저장된 최신 파일 해시
+     * @return latest 사본 Handle (호출자가 닫아야 함, 파일을 직접 삭제하면 안 됨)
+     */
+    public Handle getOrDownload(String latestKey, String manifestKey, String expectedHash) {
+        synchronized (entries) {
+            CachedFile cached = entries.get(latestKey);
+            if (cached != null && cached.file.exists() && Objects.equals(cached.hash, expectedHash)) {
+                System.out.println("[latest 캐시] hit: " + latestKey);
+                return pin(cached);
+            }
+        }
+        System.out.println("[latest 캐시] miss: " + latestKey);
+        File downloaded = manifestKey != null
+                ? chunkStore.downloadToTempFile(manifestKey, suffixOf(latestKey))
+                : fileUtil.downloadFromS3(latestKey);
+        String actualHash;
+        try {
+            actualHash = sha256(downloaded);
+        } catch (RuntimeException e) {
+            deleteQuietly(downloaded);
+            throw e;
+        }
+        if (expectedHash == null || !expectedHash.equalsIgnoreCase(actualHash)) {
+            // 메타데이터와 다른 내용은 다음 업로드가 hit로 쓰지 않도록 캐시하지 않음
+            System.err.printf("[latest 캐시] 해시 불일치, 캐시하지 않음: %s (expected %s, actual %s)%n",
+                    latestKey, expectedHash, actualHash);
+            CachedFile uncached = new CachedFile(downloaded, actualHash);
+            uncached.removed = true;
+            synchronized (entries) {
+                return pin(uncached);
+            }
+        }
+        synchronized (entries) {
+            return pin(store(latestKey, downloaded, expectedHash));
+        }
+    }
+
+    /**
+     * 새로 업로드된 로컬 파일을 latest 사본으로 등록한다. 원본 파일은 캐시 디렉터리로 이동된다.
+     *
+     * @param latestKey S3 latest 키
+     * @param localFile 업로드에 사용한 로컬 파일
+     * @param hash      파일 해시
+     */
+    public void put(String latestKey, File localFile, String hash) {
+        synchronized (entries) {
+            store(latestKey, localFile, hash);
+        }
+    }
+
+    // 사본마다 새 파일 이름을 써서 빌려준 이전 사본을 덮어쓰지 않음 (entries 잠금 안에서 호출)
+    private CachedFile store(String latestKey, File localFile, String hash) {
+        File target = newCacheFile(latestKey);
+        try {
+            Files.move(localFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("latest 캐시 저장 실패: " + latestKey, e);
+        }
+        CachedFile entry = new CachedFile(target, hash);
+        CachedFile previous = entries.put(latestKey, entry);
+        if (previous != null) {
+            discard(previous);
+        }
+        evictIfNeeded();
+        return entry;
+    }
+
+    private Handle pin(CachedFile entry) {
+        entry.pins++;
+        return new Handle(entry);
+    }
+
+    // 캐시에서 뺀 사본은 빌려준 Handle이 모두 닫힌 뒤 삭제
+    private void discard(CachedFile entry) {
+        entry.removed = true;
+        if (entry.pins == 0) {
+            deleteQuietly(entry.file);
+        }
+    }
+
+    // 파일 삭제 시 캐시 항목 제거
+    public void invalidate(String latestKey) {
+        synchronized (entries) {
+            CachedFile removed = entries.remove(latestKey);
+            if (removed != null) {
+                discard(removed);
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, CachedFile>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            Map.Entry<String, CachedFile> eldest = it.next();
+            it.remove();
+            discard(eldest.getValue());
+        }
+    }
+
+    // 확장자는 OOXML 판별에 쓰이므로 유지
+    private File newCacheFile(String latestKey) {
+        Path dir = Path.of(cacheDir);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("latest 캐시 디렉터리 생성 실패: " + dir, e);
+        }
+        return dir.resolve(UUID.randomUUID() + suffixOf(latestKey)).toFile();
+    }
+
+    private String sha256(File file) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 알고리즘을 찾을 수 없습니다.", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException("latest 해시 계산 실패: " + file.getAbsolutePath(), e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private String suffixOf(String latestKey) {
+        String name = new File(latestKey).getName();
+        int dotIdx = name.lastIndexOf('.');
+        return dotIdx != -1 ? name.substring(dotIdx) : "";
+    }
+
+    private void deleteQuietly(File file) {
+        if (!file.delete() && file.exists()) {
+            System.err.println("latest 캐시 파일 삭제 실패: " + file.getAbsolutePath());
+        }
+    }
+}
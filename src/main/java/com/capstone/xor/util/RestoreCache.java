@@ -0,0 +1,182 @@
+package com.capstone.xor.util;
+
+import com.capstone.xor.dto.RestoreCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 복원된 버전 파일의 디스크 LRU 캐시
+ * (fileMetaId, versionNumber) 단위로 보관하며, 전체 크기가 max-bytes를 넘으면 가장 오래 사용되지 않은 항목부터 삭제한다.
+ * 과거 버전의 내용은 바뀌지 않으므로 파일 삭제 시에만 무효화하면 된다.
+ */
+@Component
+public class RestoreCache {
+
+    @Value("${file.restore-cache.dir:${java.io.tmpdir}/xor-restore-cache}")
+    private String cacheDir;
+
+    @Value("${file.restore-cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    private record CacheKey(Long fileMetaId, int versionNumber) {
+    }
+
+    private record CachedFile(File file, long size) {
+    }
+
+    // 접근 순서 유지 (LRU)
+    private final LinkedHashMap<CacheKey, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 캐시에서 연 복원 파일 스트림과 크기
+     */
+    public record CachedRestore(InputStream stream, long size) {
+    }
+
+    /**
+     * 캐시된 복원 파일을 잠금 안에서 열어서 반환
+     * 열린 스트림은 이후 제거/무효화로 파일이 삭제되어도 끝까지 읽을 수 있으므로 응답이 잘리지 않는다. (호출자가 닫아야 함)
+     *
+     * @return 캐시된 파일 스트림, 없으면 null
+     */
+    public CachedRestore open(Long fileMetaId, int versionNumber) {
+        synchronized (entries) {
+            CacheKey key = new CacheKey(fileMetaId, versionNumber);
+            CachedFile cached = entries.get(key);
+            if (cached != null) {
+                try {
+                    InputStream stream = Files.newInputStream(cached.file().toPath());
+                    hits.incrementAndGet();
+                    return new CachedRestore(stream, cached.size());
+                } catch (IOException e) {
+                    // 외부에서 지워진 파일은 항목만 정리
+                    entries.remove(key);
+                    totalBytes -= cached.size();
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 복원 결과를 캐시에 등록 (파일은 캐시 디렉터리로 이동)
+     * 캐시 전체 크기보다 큰 파일은 등록하지 않고 그대로 반환한다.
+     *
+     * @return 캐시에 보관된 파일 (또는 캐시하지 않은 원본 파일)
+     */
+    public File put(Long fileMetaId, int versionNumber, File restoredFile) {
+        long size = restoredFile.length();
+        if (size > maxBytes) {
+            return restoredFile;
+        }
+        CacheKey key = new CacheKey(fileMetaId, versionNumber);
+        File target = cacheFileFor(key, restoredFile.getName());
+        synchronized (entries) {
+            try {
+                Files.move(restoredFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException("복원 캐시 저장 실패: " + key, e);
+            }
+            CachedFile previous = entries.put(key, new CachedFile(target, size));
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += size;
+            evictIfNeeded();
+        }
+        return target;
+    }
+
+    /**
+     * 복원 결과를 기록할 임시 파일을 캐시 디렉터리 안에 생성 (put 시 같은 디스크 안에서 이동)
+     */
+    public File createStagingFile(String originalName) throws IOException {
+        Path dir = Path.of(cacheDir);
+        Files.createDirectories(dir);
+        int dotIdx = originalName.lastIndexOf('.');
+        String suffix = dotIdx != -1 ? originalName.substring(dotIdx) : "";
+        return Files.createTempFile(dir, "staging-", suffix).toFile();
+    }
+
+    /**
+     * 파일 삭제 시 해당 파일의 모든 버전 캐시 제거
+     */
+    public void invalidate(Long fileMetaId) {
+        synchronized (entries) {
+            Iterator<Map.Entry<CacheKey, CachedFile>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<CacheKey, CachedFile> entry = it.next();
+                if (entry.getKey().fileMetaId().equals(fileMetaId)) {
+                    it.remove();
+                    removeFile(entry.getValue());
+                }
+            }
+        }
+    }
+
+    // 캐시 적중/미스 통계
+    public RestoreCacheStats getStats() {
+        synchronized (entries) {
+            long hitCount = hits.get();
+            long missCount = misses.get();
+            long requests = hitCount + missCount;
+            return RestoreCacheStats.builder()
+                    .hits(hitCount)
+                    .misses(missCount)
+                    .evictions(evictions.get())
+                    .hitRate(requests == 0 ? 0.0 : (double) hitCount / requests)
+                    .entries(entries.size())
+                    .sizeBytes(totalBytes)
+                    .maxBytes(maxBytes)
+                    .build();
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<CacheKey, CachedFile>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<CacheKey, CachedFile> eldest = it.next();
+            it.remove();
+            removeFile(eldest.getValue());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void removeFile(CachedFile cached) {
+        totalBytes -= cached.size();
+        if (!cached.file().delete() && cached.file().exists()) {
+            System.err.println("복원 캐시 파일 삭제 실패: " + cached.file().getAbsolutePath());
+        }
+    }
+
+    // 키마다 고유한 파일명 사용 (같은 원본명의 동시 복원 충돌 방지, 확장자 유지)
+    private File cacheFileFor(CacheKey key, String originalName) {
+        Path dir = Path.of(cacheDir);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("복원 캐시 디렉터리 생성 실패: " + dir, e);
+        }
+        int dotIdx = originalName.lastIndexOf('.');
+        String suffix = dotIdx != -1 ? originalName.substring(dotIdx) : "";
+        return dir.resolve(key.fileMetaId() + "-v" + key.versionNumber() + suffix).toFile();
+    }
+}
@@ -0,0 +1,109 @@
+package com.capstone.xor.util;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 버전 복원용 작업 공간
+ * OOXML 파트를 원본 zip 순서대로 메모리에 보관하고, spillThreshold보다 큰 파트만 임시 파일로 내린다.
+ * 복원이 끝나면 writeZip으로 응답 스트림에 바로 압축해서 쓴다.
+ */
+public class RestoreWorkspace implements Closeable {
+    private final long spillThreshold;
+
+    // 파트 경로 -> 내용 (byte[] 또는 임시 파일), zip 엔트리 순서 유지
+    private final LinkedHashMap<String, Object> parts = new LinkedHashMap<>();
+
+    public RestoreWorkspace(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * zip 스트림을 엔트리 단위로 읽어 작업 공간 생성 (디스크에 압축 해제하지 않음)
+     * 전달받은 스트림은 닫지 않는다. (호출자가 남은 부분을 읽어 해시 검증 등에 사용)
+     */
+    public static RestoreWorkspace fromZip(InputStream in, long spillThreshold) throws IOException {
+        RestoreWorkspace workspace = new RestoreWorkspace(spillThreshold);
+        try (ZipInputStream zis = new ZipInputStream(CloseShieldInputStream.wrap(in))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    workspace.write(entry.getName(), zis.readAllBytes());
+                }
+                zis.closeEntry();
+            }
+        } catch (IOException e) {
+            workspace.close();
+            throw e;
+        }
+        return workspace;
+    }
+
+    public boolean contains(String path) {
+        return parts.containsKey(path);
+    }
+
+    // 파트 내용 조회, 없으면 null
+    public byte[] read(String path) throws IOException {
+        Object content = parts.get(path);
+        if (content instanceof File spilled) {
+            return Files.readAllBytes(spilled.toPath());
+        }
+        return (byte[]) content;
+    }
+
+    // 파트 추가/교체 (임계값보다 크면 임시 파일로 보관)
+    public void write(String path, byte[] data) throws IOException {
+        Object previous = parts.get(path);
+        if (previous instanceof File spilled) {
+            Files.deleteIfExists(spilled.toPath());
+        }
+        if (data.length > spillThreshold) {
+            File spill = File.createTempFile("restore-part-", ".bin");
+            Files.write(spill.toPath(), data);
+            parts.put(path, spill);
+        } else {
+            parts.put(path, data);
+        }
+    }
+
+    /**
+     * 모든 파트를 zip으로 압축해 출력 스트림에 쓴다. (출력 스트림은 닫지 않음)
+     */
+    public void writeZip(OutputStream out) throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(out);
+        for (Map.Entry<String, Object> part : parts.entrySet()) {
+            zos.putNextEntry(new ZipEntry(part.getKey()));
+            if (part.getValue() instanceof File spilled) {
+                Files.copy(spilled.toPath(), zos);
+            } else {
+                zos.write((byte[]) part.getValue());
+            }
+            zos.closeEntry();
+        }
+        zos.finish();
+        zos.flush();
+    }
+
+    // 임시 파일로 내린 파트 정리
+    @Override
+    public void close() {
+        for (Object content : parts.values()) {
+            if (content instanceof File spilled && !spilled.delete() && spilled.exists()) {
+                System.err.println("복원 임시 파트 삭제 실패: " + spilled.getAbsolutePath());
+            }
+        }
+        parts.clear();
+    }
+}
@@ -0,0 +1,127 @@
+package com.capstone.xor.util;
+
+import name.fraser.neil.plaintext.diff_match_patch;
+import name.fraser.neil.plaintext.diff_match_patch.Diff;
+import name.fraser.neil.plaintext.diff_match_patch.Operation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 큰 텍스트 파트용 토큰 단위 diff
+ * 줄(또는 XML 태그/텍스트 경계) 단위로 먼저 diff하고, 바뀐 구간 안에서만 문자 단위로 다시 diff한다.
+ * 결과는 diff_match_patch의 Diff 목록이므로 기존처럼 patch_make/patch_apply로 처리할 수 있다.
+ */
+public final class TokenDiff {
+
+    // 토큰 하나를 문자 하나로 매핑하므로 서로 다른 토큰 수는 char 범위로 제한 (새 텍스트 몫을 남겨둠)
+    private static final int MAX_TOKENS_PREV = 40000;
+    private static final int MAX_TOKENS_NEW = Character.MAX_VALUE - 1;
+
+    private TokenDiff() {
+    }
+
+    /**
+     * @param xml true면 XML 태그/텍스트 경계로, false면 줄 단위로 토큰화
+     */
+    public static LinkedList<Diff> diff(diff_match_patch dmp, String text1, String text2, boolean xml) {
+        List<String> tokenArray = new ArrayList<>();
+        Map<String, Character> tokenIndex = new HashMap<>();
+        tokenArray.add(""); // 0번 문자는 사용하지 않음
+        String chars1 = tokensToChars(tokenize(text1, xml), tokenArray, tokenIndex, MAX_TOKENS_PREV);
+        String chars2 = tokensToChars(tokenize(text2, xml), tokenArray, tokenIndex, MAX_TOKENS_NEW);
+
+        LinkedList<Diff> tokenDiffs = dmp.diff_main(chars1, chars2, false);
+        for (Diff diff : tokenDiffs) {
+            diff.text = charsToText(diff.text, tokenArray);
+        }
+        return refine(dmp, tokenDiffs);
+    }
+
+    /**
+     * 연속된 삭제/삽입 구간만 문자 단위로 다시 diff (동일 구간은 그대로 유지)
+     */
+    private static LinkedList<Diff> refine(diff_match_patch dmp, LinkedList<Diff> tokenDiffs) {
+        LinkedList<Diff> result = new LinkedList<>();
+        StringBuilder deleted = new StringBuilder();
+        StringBuilder inserted = new StringBuilder();
+        for (Diff diff : tokenDiffs) {
+            switch (diff.operation) {
+                case DELETE -> deleted.append(diff.text);
+                case INSERT -> inserted.append(diff.text);
+                case EQUAL -> {
+                    flushChangedRegion(dmp, deleted, inserted, result);
+                    result.add(diff);
+                }
+            }
+        }
+        flushChangedRegion(dmp, deleted, inserted, result);
+        dmp.diff_cleanupMerge(result);
+        return result;
+    }
+
+    private static void flushChangedRegion(diff_match_patch dmp, StringBuilder deleted, StringBuilder inserted,
+                                           LinkedList<Diff> result) {
+        if (deleted.length() > 0 && inserted.length() > 0) {
+            result.addAll(dmp.diff_main(deleted.toString(), inserted.toString(), false));
+        } else if (deleted.length() > 0) {
+            result.add(new Diff(Operation.DELETE, deleted.toString()));
+        } else if (inserted.length() > 0) {
+            result.add(new Diff(Operation.INSERT, inserted.toString()));
+        }
+        deleted.setLength(0);
+        inserted.setLength(0);
+    }
+
+    // 토큰 경계: 줄 모드는 개행 직후, XML 모드는 '<' 직전과 '>' 직후
+    static List<String> tokenize(String text, boolean xml) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (xml && c == '<' && i > start) {
+                tokens.add(text.substring(start, i));
+                start = i;
+            } else if ((xml && c == '>') || c == '\n') {
+                tokens.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            tokens.add(text.substring(start));
+        }
+        return tokens;
+    }
+
+    private static String tokensToChars(List<String> tokens, List<String> tokenArray, Map<String, Character> tokenIndex,
+                                        int maxTokens) {
+        StringBuilder chars = new StringBuilder(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (tokenArray.size() >= maxTokens && !tokenIndex.containsKey(token)) {
+                // 토큰 종류가 너무 많으면 나머지를 하나의 토큰으로 묶음
+                token = String.join("", tokens.subList(i, tokens.size()));
+                i = tokens.size();
+            }
+            Character ch = tokenIndex.get(token);
+            if (ch == null) {
+                ch = (char) tokenArray.size();
+                tokenArray.add(token);
+                tokenIndex.put(token, ch);
+            }
+            chars.append(ch.charValue());
+        }
+        return chars.toString();
+    }
+
+    private static String charsToText(String chars, List<String> tokenArray) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < chars.length(); i++) {
+            text.append(tokenArray.get(chars.charAt(i)));
+        }
+        return text.toString();
+    }
+}
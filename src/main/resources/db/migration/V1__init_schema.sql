@@ -0,0 +1,50 @@
+-- 초기 스키마: 기존 ddl-auto=create가 만들던 테이블 그대로 (운영 DB는 이 버전으로 baseline 되어 실행되지 않음)
+-- 이후 변경은 V2부터 ALTER로 적용해 기존 데이터를 유지한다.
+CREATE TABLE users (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    username   VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE sync_folder (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT       NOT NULL,
+    folder_path VARCHAR(255) NOT NULL,
+    created_at  DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_sync_folder_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE files (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    original_name   VARCHAR(255) NOT NULL,
+    s3_key          VARCHAR(512),
+    size            BIGINT,
+    mime_type       VARCHAR(255),
+    hash            VARCHAR(64),
+    current_version INT          NOT NULL,
+    user_id         BIGINT       NOT NULL,
+    sync_folder_id  BIGINT       NOT NULL,
+    created_at      DATETIME(6),
+    last_modified   DATETIME(6),
+    last_sync_time  DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_files_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_files_sync_folder FOREIGN KEY (sync_folder_id) REFERENCES sync_folder (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE version_metadata (
+    id             BIGINT                   NOT NULL AUTO_INCREMENT,
+    file_id        BIGINT                   NOT NULL,
+    version_number INT                      NOT NULL,
+    version_type   ENUM ('SNAPSHOT','DIFF'),
+    s3_key         VARCHAR(2048),
+    created_date   DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_version_metadata_file FOREIGN KEY (file_id) REFERENCES files (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
@@ -0,0 +1,152 @@
+-- 백로그 스키마 변경: 기존 테이블에 컬럼/인덱스/유니크 키를 추가하고 새 테이블을 만든다.
+-- 유니크 키를 걸기 전에 키가 겹치는 기존 행을 정리한다.
+
+-- 폴더별 변경 순번 (변경 피드)
+ALTER TABLE sync_folder ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+-- existsByUserIdAndFolderPath
+CREATE INDEX idx_sync_folder_user_path ON sync_folder (user_id, folder_path);
+
+-- files.relative_path (동기화 목록이 상대 경로를 키로 쓰므로 NOT NULL)
+-- 기존 행은 s3_key에서 폴더 prefix(users/{userId}/sync-folders/{folderId}/)를 뺀 값으로 채우고,
+-- prefix 밖의 키는 s3_key(없으면 id)를 그대로 사용한다.
+ALTER TABLE files
+    ADD COLUMN relative_path VARCHAR(512) AFTER s3_key,
+    ADD COLUMN manifest_key  VARCHAR(512) AFTER relative_path;
+
+UPDATE files
+SET relative_path = SUBSTRING(s3_key, CHAR_LENGTH(CONCAT('users/', user_id, '/sync-folders/', sync_folder_id, '/')) + 1)
+WHERE s3_key LIKE CONCAT('users/', user_id, '/sync-folders/', sync_folder_id, '/%');
+
+UPDATE files
+SET relative_path = COALESCE(s3_key, CAST(id AS CHAR))
+WHERE relative_path IS NULL;
+
+ALTER TABLE files MODIFY relative_path VARCHAR(512) NOT NULL;
+
+-- 같은 폴더에 같은 상대 경로로 중복 저장된 행은 마지막(id가 가장 큰) 행만 남김 (버전 기록은 FK cascade로 함께 삭제)
+DELETE f
+FROM files f
+         JOIN files k ON k.sync_folder_id = f.sync_folder_id
+    AND k.relative_path = f.relative_path
+    AND k.id > f.id;
+
+-- findBySyncFolderId, 상대 경로 조회/목록
+ALTER TABLE files ADD CONSTRAINT uk_files_folder_relative_path UNIQUE (sync_folder_id, relative_path);
+-- findByUserIdAndSyncFolderIdAndOriginalName, findForUpdate
+CREATE INDEX idx_files_user_folder_name ON files (user_id, sync_folder_id, original_name);
+-- findByUserIdAndSyncFolderIdAndS3Key
+CREATE INDEX idx_files_user_folder_s3_key ON files (user_id, sync_folder_id, s3_key);
+
+-- version_metadata: REVERSE_DIFF 추가로 enum 대신 문자열, 유니크 키 길이 제한에 맞춰 s3_key 700자
+ALTER TABLE version_metadata
+    MODIFY version_type VARCHAR(32),
+    MODIFY s3_key VARCHAR(700),
+    ADD COLUMN manifest_key VARCHAR(2048) AFTER s3_key,
+    ADD COLUMN size         BIGINT AFTER manifest_key;
+
+-- 같은 파일/버전/키로 중복 기록된 행은 처음(id가 가장 작은) 행만 남김
+DELETE v
+FROM version_metadata v
+         JOIN version_metadata k ON k.file_id = v.file_id
+    AND k.version_number = v.version_number
+    AND k.s3_key = v.s3_key
+    AND k.id < v.id;
+
+-- findByFileMeta_IdOrderByVersionNumberAsc
+ALTER TABLE version_metadata
+    ADD CONSTRAINT uk_version_metadata_file_version_key UNIQUE (file_id, version_number, s3_key);
+-- findTopByFileMeta_IdAndVersionTypeOrderByVersionNumberDesc (마지막 snapshot)
+CREATE INDEX idx_version_metadata_file_type_version ON version_metadata (file_id, version_type, version_number);
+
+-- FileMeta/VersionMetadata/FileSearchGram id 할당 (pooled, 50개 단위)
+-- 기존 AUTO_INCREMENT id와 겹치지 않도록 현재 최대 id 다음 구간부터 시작
+-- (id 컬럼의 AUTO_INCREMENT는 FK가 참조 중이라 그대로 두며, 엔티티가 id를 직접 넣으므로 사용되지 않음)
+CREATE TABLE id_generators (
+    gen_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (gen_name)
+) ENGINE = InnoDB;
+
+INSERT INTO id_generators (gen_name, next_val)
+SELECT 'files', COALESCE(MAX(id), 0) + 50
+FROM files;
+
+INSERT INTO id_generators (gen_name, next_val)
+SELECT 'version_metadata', COALESCE(MAX(id), 0) + 50
+FROM version_metadata;
+
+CREATE TABLE version_jobs (
+    id                  BIGINT        NOT NULL AUTO_INCREMENT,
+    file_id             BIGINT        NOT NULL,
+    version_number      INT           NOT NULL,
+    file_base_key       VARCHAR(2048) NOT NULL,
+    source_key          VARCHAR(2048),
+    source_manifest_key VARCHAR(2048),
+    target_key          VARCHAR(2048),
+    target_manifest_key VARCHAR(2048),
+    mime_type           VARCHAR(255),
+    status              VARCHAR(32)   NOT NULL,
+    attempts            INT           NOT NULL,
+    last_error          VARCHAR(1000),
+    next_attempt_at     DATETIME(6),
+    created_at          DATETIME(6),
+    updated_at          DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_version_jobs_file FOREIGN KEY (file_id) REFERENCES files (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+-- 워커 폴링 (status = PENDING AND next_attempt_at <= now)
+CREATE INDEX idx_version_jobs_status_next_attempt ON version_jobs (status, next_attempt_at);
+CREATE INDEX idx_version_jobs_file_version ON version_jobs (file_id, version_number);
+
+CREATE TABLE file_changes (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    sync_folder_id BIGINT      NOT NULL,
+    seq            BIGINT      NOT NULL,
+    file_id        BIGINT      NOT NULL,
+    relative_path  VARCHAR(512),
+    change_type    VARCHAR(32) NOT NULL,
+    hash           VARCHAR(64),
+    size           BIGINT,
+    version        INT         NOT NULL,
+    changed_at     DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_file_changes_sync_folder FOREIGN KEY (sync_folder_id) REFERENCES sync_folder (id) ON DELETE CASCADE,
+    CONSTRAINT uk_file_changes_folder_seq UNIQUE (sync_folder_id, seq)
+) ENGINE = InnoDB;
+
+CREATE TABLE merkle_nodes (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    sync_folder_id BIGINT       NOT NULL,
+    path           VARCHAR(512) NOT NULL,
+    parent_path    VARCHAR(512),
+    name           VARCHAR(255) NOT NULL,
+    directory      BIT(1)       NOT NULL,
+    hash           VARCHAR(64)  NOT NULL,
+    file_id        BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_merkle_nodes_sync_folder FOREIGN KEY (sync_folder_id) REFERENCES sync_folder (id) ON DELETE CASCADE,
+    CONSTRAINT uk_merkle_nodes_folder_path UNIQUE (sync_folder_id, path)
+) ENGINE = InnoDB;
+CREATE INDEX idx_merkle_nodes_folder_parent ON merkle_nodes (sync_folder_id, parent_path);
+
+CREATE TABLE file_search_entries (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    file_id    BIGINT       NOT NULL,
+    user_id    BIGINT       NOT NULL,
+    name_lower VARCHAR(255) NOT NULL,
+    path_lower VARCHAR(512) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_file_search_entries_file UNIQUE (file_id),
+    CONSTRAINT fk_file_search_entries_file FOREIGN KEY (file_id) REFERENCES files (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+CREATE INDEX idx_file_search_entries_user_path ON file_search_entries (user_id, path_lower);
+
+CREATE TABLE file_search_grams (
+    id       BIGINT     NOT NULL,
+    entry_id BIGINT     NOT NULL,
+    user_id  BIGINT     NOT NULL,
+    gram     VARCHAR(3) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_file_search_grams_entry FOREIGN KEY (entry_id) REFERENCES file_search_entries (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+CREATE INDEX idx_file_search_grams_user_gram ON file_search_grams (user_id, gram, entry_id);
@@ -0,0 +1,16 @@
+-- 공유 청크 참조 수 (청크를 가리키는 manifest 수, 0이 되면 GC가 S3 객체와 함께 삭제)
+-- 이 테이블 이전에 저장된 청크는 행이 없으므로 삭제되지 않고, 다시 참조될 때 한 번 더 업로드된다.
+CREATE TABLE chunk_refs (
+    hash      VARCHAR(64) NOT NULL,
+    ref_count BIGINT      NOT NULL,
+    PRIMARY KEY (hash)
+) ENGINE = InnoDB;
+-- 주기 GC (ref_count = 0)
+CREATE INDEX idx_chunk_refs_ref_count ON chunk_refs (ref_count);
+
+-- 참조 수에 반영된 manifest (파일/폴더 삭제 시 prefix로 찾아 참조 해제)
+CREATE TABLE chunk_manifests (
+    manifest_key VARCHAR(700) NOT NULL,
+    created_at   DATETIME(6),
+    PRIMARY KEY (manifest_key)
+) ENGINE = InnoDB;
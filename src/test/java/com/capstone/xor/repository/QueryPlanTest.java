@@ -0,0 +1,225 @@
+package com.capstone.xor.repository;
+
+import com.capstone.xor.entity.FileMeta;
+import com.capstone.xor.entity.SyncFolder;
+import com.capstone.xor.entity.User;
+import com.capstone.xor.entity.VersionMetadata;
+import com.capstone.xor.entity.VersionType;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 자주 쓰는 조회가 Flyway 마이그레이션이 만든 인덱스를 타는지 MySQL 실행 계획으로 확인
+ * 스키마는 운영과 같은 마이그레이션으로 만들고 엔티티 매핑과 맞는지 검증(ddl-auto=validate)하며,
+ * EXPLAIN 대상은 리포지토리 메서드가 실제로 실행한 SQL을 StatementInspector로 캡처해서 사용한다.
+ * (Docker가 없는 환경에서는 건너뜀)
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.capstone.xor.repository.QueryPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private FileMetaRepository fileMetaRepository;
+
+    @Autowired
+    private VersionMetadataRepository versionMetadataRepository;
+
+    private Long userId;
+    private Long folderId;
+    private Long fileId;
+
+    @BeforeEach
+    void setUp() {
+        //given: 사용자 1명, 폴더 10개, 폴더당 파일 20개와 파일당 버전 기록 3개 (한 폴더는 전체의 10%)
+        User user = em.persist(new User("planuser", "pw", "plan@test.com"));
+        userId = user.getId();
+        for (int f = 0; f < 10; f++) {
+            SyncFolder folder = new SyncFolder();
+            folder.setUser(user);
+            folder.setFolderPath("/sync-" + f);
+            em.persist(folder);
+            if (f == 0) {
+                folderId = folder.getId();
+            }
+            for (int i = 0; i < 20; i++) {
+                String name = "file-" + i + ".txt";
+                String relativePath = name + "/latest/" + name;
+                FileMeta file = new FileMeta();
+                file.setUser(user);
+                file.setSyncFolder(folder);
+                file.setOriginalName(name);
+                file.setRelativePath(relativePath);
+                file.setS3Key(String.format("users/%d/sync-folders/%d/%s", userId, folder.getId(), relativePath));
+                em.persist(file);
+                if (f == 0 && i == 0) {
+                    fileId = file.getId();
+                }
+                for (int v = 1; v <= 3; v++) {
+                    em.persist(VersionMetadata.builder()
+                            .fileMeta(file)
+                            .versionNumber(v)
+                            .versionType(v == 1 ? VersionType.SNAPSHOT : VersionType.DIFF)
+                            .s3Key(file.getS3Key() + "/v" + v)
+                            .build());
+                }
+            }
+        }
+        em.flush();
+        em.clear();
+        SqlCapture.clear();
+    }
+
+    // 업로드/조회 시 파일명으로 찾는 조회 (findForUpdate와 같은 조건)
+    @Test
+    void findByOriginalName_shouldUseUserFolderNameIndex() {
+        fileMetaRepository.findByUserIdAndSyncFolderIdAndOriginalName(userId, folderId, "file-3.txt");
+
+        List<PlanRow> plan = explain(SqlCapture.lastSelect(), userId, folderId, "file-3.txt");
+        assertTrue(usesIndex(plan, "idx_files_user_folder_name"), plan.toString());
+    }
+
+    @Test
+    void findByS3Key_shouldUseUserFolderS3KeyIndex() {
+        String s3Key = String.format("users/%d/sync-folders/%d/file-3.txt/latest/file-3.txt", userId, folderId);
+        fileMetaRepository.findByUserIdAndSyncFolderIdAndS3Key(userId, folderId, s3Key);
+
+        List<PlanRow> plan = explain(SqlCapture.lastSelect(), userId, folderId, s3Key);
+        assertTrue(usesIndex(plan, "idx_files_user_folder_s3_key"), plan.toString());
+    }
+
+    @Test
+    void findByRelativePath_shouldUseFolderRelativePathKey() {
+        String relativePath = "file-3.txt/latest/file-3.txt";
+        fileMetaRepository.findByUserIdAndSyncFolderIdAndRelativePath(userId, folderId, relativePath);
+
+        List<PlanRow> plan = explain(SqlCapture.lastSelect(), userId, folderId, relativePath);
+        assertTrue(usesIndex(plan, "uk_files_folder_relative_path"), plan.toString());
+    }
+
+    @Test
+    void findBySyncFolderId_shouldNotScanTable() {
+        fileMetaRepository.findBySyncFolderId(folderId);
+
+        List<PlanRow> plan = explain(SqlCapture.lastSelect(), folderId);
+        assertFalse(scansTable(plan), plan.toString());
+    }
+
+    @Test
+    void findVersionsByFile_shouldNotScanTable() {
+        versionMetadataRepository.findByFileMeta_IdOrderByVersionNumberAsc(fileId);
+
+        List<PlanRow> plan = explain(SqlCapture.lastSelect(), fileId);
+        assertFalse(scansTable(plan), plan.toString());
+    }
+
+    // 체크포인트 판단 시 마지막 snapshot 조회
+    @Test
+    void findLatestSnapshot_shouldUseFileTypeVersionIndex() {
+        versionMetadataRepository.findTopByFileMeta_IdAndVersionTypeOrderByVersionNumberDesc(fileId, VersionType.SNAPSHOT);
+
+        List<PlanRow> plan = explain(SqlCapture.lastSelect(), fileId, VersionType.SNAPSHOT.name(), 1);
+        assertTrue(usesIndex(plan, "idx_version_metadata_file_type_version"), plan.toString());
+    }
+
+    // 복원 시작점 snapshot 조회 (FileMeta fetch join)
+    @Test
+    void findNearestSnapshots_shouldUseFileTypeVersionIndex() {
+        versionMetadataRepository.findNearestSnapshots(fileId, 3, PageRequest.of(0, 1));
+
+        List<PlanRow> plan = explain(SqlCapture.lastSelect(), fileId, 3, 1);
+        assertTrue(usesIndex(plan, "idx_version_metadata_file_type_version"), plan.toString());
+        assertFalse(scansTable(plan), plan.toString());
+    }
+
+    // EXPLAIN 결과 한 행
+    record PlanRow(String table, String type, String key) {
+    }
+
+    private boolean usesIndex(List<PlanRow> plan, String index) {
+        return plan.stream().anyMatch(row -> index.equalsIgnoreCase(row.key()));
+    }
+
+    private boolean scansTable(List<PlanRow> plan) {
+        return plan.stream().anyMatch(row -> "ALL".equals(row.type()));
+    }
+
+    // 캡처한 SQL을 같은 트랜잭션(커넥션)에서 EXPLAIN, 바인딩 값은 SQL의 ? 순서대로 전달
+    private List<PlanRow> explain(String sql, Object... params) {
+        assertNotNull(sql, "리포지토리 조회 SQL이 캡처되지 않았습니다.");
+        assertEquals(params.length, sql.chars().filter(c -> c == '?').count(), sql);
+        List<PlanRow> rows = new ArrayList<>();
+        em.getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new PlanRow(rs.getString("table"), rs.getString("type"), rs.getString("key")));
+                    }
+                }
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Hibernate가 실행하는 SQL을 그대로 모아 두는 StatementInspector (설정에서 클래스 이름으로 등록)
+     */
+    public static class SqlCapture implements StatementInspector {
+        private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        static void clear() {
+            statements.clear();
+        }
+
+        // 마지막으로 실행된 SELECT
+        static String lastSelect() {
+            synchronized (statements) {
+                for (int i = statements.size() - 1; i >= 0; i--) {
+                    String sql = statements.get(i);
+                    if (sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+                        return sql;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.capstone.xor.service;
+
+import com.capstone.xor.dto.DiffResult;
+import com.capstone.xor.entity.FileMeta;
+import com.capstone.xor.entity.VersionMetadata;
+import com.capstone.xor.entity.VersionType;
+import com.capstone.xor.repository.VersionJobRepository;
+import com.capstone.xor.repository.VersionMetadataRepository;
+import com.capstone.xor.util.BinaryDelta;
+import com.capstone.xor.util.ChunkStore;
+import com.capstone.xor.util.FileUtil;
+import com.capstone.xor.util.RestoreCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DiffServiceTest {
+
+    @Mock
+    private VersionMetadataRepository versionMetadataRepository;
+
+    @Mock
+    private VersionJobRepository versionJobRepository;
+
+    @Mock
+    private FileUtil fileUtil;
+
+    @Mock
+    private RestoreCache restoreCache;
+
+    @Mock
+    private ChunkStore chunkStore;
+
+    @Mock
+    private ExecutorService s3TransferExecutor;
+
+    @InjectMocks
+    private DiffService diffService;
+
+    @TempDir
+    Path tempDir;
+
+    // 변경된 엔트리만 diff 결과에 포함되는지 테스트
+    @Test
+    void diffZipArchives_ShouldReturnOnlyChangedEntries() throws IOException {
+        // given: 문서 본문만 바뀐 두 개의 docx
+        Map<String, byte[]> prevEntries = new LinkedHashMap<>();
+        prevEntries.put("[Content_Types].xml", "<Types/>".getBytes(StandardCharsets.UTF_8));
+        prevEntries.put("word/document.xml", "<w:document>hello</w:document>".getBytes(StandardCharsets.UTF_8));
+        prevEntries.put("word/media/image1.png", new byte[]{1, 2, 3});
+
+        Map<String, byte[]> newEntries = new LinkedHashMap<>(prevEntries);
+        newEntries.put("word/document.xml", "<w:document>hello world</w:document>".getBytes(StandardCharsets.UTF_8));
+
+        File prevZip = writeZip("prev.docx", prevEntries);
+        File newZip = writeZip("new.docx", newEntries);
+
+        // when
+        List<DiffResult> diffs = diffService.diffZipArchives(prevZip, newZip);
+
+        // then
+        assertEquals(1, diffs.size());
+        assertEquals("word/document.xml", diffs.get(0).getRelativePath());
+        assertEquals("text/plain", diffs.get(0).getMimeType());
+    }
+
+    // 추가/삭제된 엔트리도 diff로 기록되는지 테스트
+    @Test
+    void diffZipArchives_ShouldReportAddedAndRemovedEntries() throws IOException {
+        // given
+        Map<String, byte[]> prevEntries = new LinkedHashMap<>();
+        prevEntries.put("word/document.xml", "<w:document/>".getBytes(StandardCharsets.UTF_8));
+        prevEntries.put("word/media/old.png", new byte[]{9, 9});
+
+        Map<String, byte[]> newEntries = new LinkedHashMap<>();
+        newEntries.put("word/document.xml", "<w:document/>".getBytes(StandardCharsets.UTF_8));
+        newEntries.put("word/media/new.png", new byte[]{7, 7, 7});
+
+        File prevZip = writeZip("prev.docx", prevEntries);
+        File newZip = writeZip("new.docx", newEntries);
+
+        // when
+        List<DiffResult> diffs = diffService.diffZipArchives(prevZip, newZip);
+
+        // then
+        assertEquals(2, diffs.size());
+        assertEquals("word/media/new.png", diffs.get(0).getRelativePath());
+        assertEquals(3, diffs.get(0).getSize());
+        assertEquals("word/media/old.png", diffs.get(1).getRelativePath());
+        assertEquals(0, diffs.get(1).getSize());
+    }
+
+    // 조금만 바뀐 바이너리 파트는 전체 파일 대신 binary delta로 저장되는지 테스트
+    @Test
+    void diffZipArchives_ShouldStoreBinaryDeltaForSmallBinaryEdit() throws IOException {
+        // given: 64KB 이미지 중간 몇 바이트만 수정
+        byte[] prevImage = new byte[64 * 1024];
+        new Random(42).nextBytes(prevImage);
+        byte[] newImage = prevImage.clone();
+        for (int i = 30000; i < 30010; i++) {
+            newImage[i] ^= 0x5a;
+        }
+
+        File prevZip = writeZip("prev.docx", Map.of("word/media/image1.png", prevImage));
+        File newZip = writeZip("new.docx", Map.of("word/media/image1.png", newImage));
+
+        // when
+        List<DiffResult> diffs = diffService.diffZipArchives(prevZip, newZip);
+
+        // then
+        assertEquals(1, diffs.size());
+        DiffResult diff = diffs.get(0);
+        assertTrue(diff.isBinaryDelta());
+        assertEquals(".delta", diff.getKeyExtension());
+        assertTrue(diff.getSize() < newImage.length / 10);
+        assertArrayEquals(newImage, BinaryDelta.apply(prevImage, diff.toInputStream().readAllBytes()));
+    }
+
+    // snapshot에서 DIFF를 적용해 과거 버전을 복원하면 저장 당시 내용과 같은지 테스트 (청크 모드 아님, 해시 검증 없음)
+    @Test
+    void restoreFileToVersion_ShouldReplayDiffsFromSnapshot() throws IOException {
+        // given: v1 snapshot, v2는 본문 텍스트 수정 + 이미지 일부 수정 + 파트 추가, 현재 버전은 v3
+        byte[] image = new byte[64 * 1024];
+        new Random(7).nextBytes(image);
+        byte[] editedImage = image.clone();
+        for (int i = 100; i < 110; i++) {
+            editedImage[i] ^= 0x5a;
+        }
+        Map<String, byte[]> v1 = new LinkedHashMap<>();
+        v1.put("[Content_Types].xml", "<Types/>".getBytes(StandardCharsets.UTF_8));
+        v1.put("word/document.xml", "<w:document>첫 번째 버전</w:document>".getBytes(StandardCharsets.UTF_8));
+        v1.put("word/media/image1.png", image);
+        Map<String, byte[]> v2 = new LinkedHashMap<>(v1);
+        v2.put("word/document.xml", "<w:document>두 번째 버전입니다</w:document>".getBytes(StandardCharsets.UTF_8));
+        v2.put("word/media/image1.png", editedImage);
+        v2.put("word/comments.xml", "<w:comments/>".getBytes(StandardCharsets.UTF_8));
+        File v1Zip = writeZip("v1.docx", v1);
+        File v2Zip = writeZip("v2.docx", v2);
+
+        FileMeta fileMeta = fileMeta(3, "latest-hash-not-used");
+        String baseKey = "users/1/sync-folders/1/doc.docx";
+        VersionMetadata snapshot = version(fileMeta, 1, VersionType.SNAPSHOT, baseKey + "/.snapshot/doc_v1.docx");
+        when(chunkStore.openContent(snapshot.getS3Key(), null))
+                .thenAnswer(invocation -> new ByteArrayInputStream(Files.readAllBytes(v1Zip.toPath())));
+
+        // storeVersion과 같은 키 형식으로 v2 diff 저장
+        List<VersionMetadata> diffRows = new ArrayList<>();
+        for (DiffResult diff : diffService.diffZipArchives(v1Zip, v2Zip)) {
+            String diffKey = baseKey + "/.diffs/v2/" + diff.getRelativePath() + diff.getKeyExtension();
+            byte[] content = diff.toInputStream().readAllBytes();
+            when(fileUtil.downloadBytesFromS3(diffKey)).thenReturn(content);
+            diffRows.add(version(fileMeta, 2, VersionType.DIFF, diffKey));
+        }
+        when(versionMetadataRepository.findNearestSnapshots(eq(1L), eq(2), any())).thenReturn(List.of(snapshot));
+        when(versionMetadataRepository.findByFileMeta_IdAndVersionTypeAndVersionNumberBetweenOrderByVersionNumberAsc(
+                1L, VersionType.DIFF, 2, 2)).thenReturn(diffRows);
+        runTransfersInline();
+
+        // when
+        Map<String, byte[]> restored = unzip(restore(2));
+
+        // then
+        assertEquals(v2.keySet(), restored.keySet());
+        for (Map.Entry<String, byte[]> entry : v2.entrySet()) {
+            assertArrayEquals(entry.getValue(), restored.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    // latest에서 시작하는 복원은 내용 해시가 FileMeta.hash와 같을 때만 진행되는지 테스트
+    @Test
+    void restoreFileToVersion_ShouldVerifyLatestHash() throws IOException {
+        // given
+        Map<String, byte[]> entries = Map.of("word/document.xml", "<w:document>최신</w:document>".getBytes(StandardCharsets.UTF_8));
+        byte[] latest = Files.readAllBytes(writeZip("latest.docx", entries).toPath());
+        FileMeta fileMeta = fileMeta(2, sha256(latest));
+        VersionMetadata snapshot = version(fileMeta, 1, VersionType.SNAPSHOT, "users/1/sync-folders/1/doc.docx/.snapshot/doc_v1.docx");
+        when(versionMetadataRepository.findNearestSnapshots(eq(1L), eq(2), any())).thenReturn(List.of(snapshot));
+        when(chunkStore.openContent(fileMeta.getS3Key(), null)).thenAnswer(invocation -> new ByteArrayInputStream(latest));
+        runTransfersInline();
+
+        // when & then: 해시가 같으면 latest 그대로 복원
+        assertArrayEquals(entries.get("word/document.xml"), unzip(restore(2)).get("word/document.xml"));
+
+        // when & then: 계획 이후 latest가 바뀌었으면 실패
+        fileMeta.setHash(sha256("다른 내용".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalStateException.class, () -> restore(2));
+    }
+
+    private byte[] restore(int version) throws IOException {
+        when(restoreCache.createStagingFile(anyString()))
+                .thenAnswer(invocation -> Files.createTempFile(tempDir, "staging-", ".docx").toFile());
+        DiffService.RestoreResult result = diffService.restoreFileToVersion(1L, version);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.body().writeTo(out);
+        return out.toByteArray();
+    }
+
+    // S3 전송 executor 대신 호출 스레드에서 바로 실행
+    private void runTransfersInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(s3TransferExecutor).execute(any(Runnable.class));
+    }
+
+    private FileMeta fileMeta(int currentVersion, String hash) {
+        FileMeta fileMeta = new FileMeta();
+        fileMeta.setId(1L);
+        fileMeta.setOriginalName("doc.docx");
+        fileMeta.setS3Key("users/1/sync-folders/1/doc.docx/latest/doc.docx");
+        fileMeta.setCurrentVersion(currentVersion);
+        fileMeta.setHash(hash);
+        return fileMeta;
+    }
+
+    private VersionMetadata version(FileMeta fileMeta, int number, VersionType type, String s3Key) {
+        return VersionMetadata.builder()
+                .fileMeta(fileMeta)
+                .versionNumber(number)
+                .versionType(type)
+                .s3Key(s3Key)
+                .build();
+    }
+
+    private Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), zis.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private File writeZip(String name, Map<String, byte[]> entries) throws IOException {
+        File zip = tempDir.resolve(name).toFile();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zip))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zos.putNextEntry(new ZipEntry(entry.getKey()));
+                zos.write(entry.getValue());
+                zos.closeEntry();
+            }
+        }
+        return zip;
+    }
+}
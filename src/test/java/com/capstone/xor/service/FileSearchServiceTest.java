@@ -0,0 +1,112 @@
+package com.capstone.xor.service;
+
+import com.capstone.xor.entity.FileMeta;
+import com.capstone.xor.entity.FileSearchEntry;
+import com.capstone.xor.entity.FileSearchGram;
+import com.capstone.xor.entity.User;
+import com.capstone.xor.repository.FileSearchEntryRepository;
+import com.capstone.xor.repository.FileSearchGramRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileSearchServiceTest {
+
+    @Mock
+    private FileSearchEntryRepository fileSearchEntryRepository;
+
+    @Mock
+    private FileSearchGramRepository fileSearchGramRepository;
+
+    @InjectMocks
+    private FileSearchService fileSearchService;
+
+    // 색인 시 "디렉터리/파일명" 소문자 경로의 각 위치 gram 저장 테스트
+    @Test
+    @SuppressWarnings("unchecked")
+    void index_shouldStoreLowercaseGramsOfVisiblePath() {
+        //given
+        User user = new User();
+        user.setId(1L);
+        FileMeta fileMeta = new FileMeta();
+        fileMeta.setId(5L);
+        fileMeta.setUser(user);
+        fileMeta.setOriginalName("AB.txt");
+        when(fileSearchEntryRepository.findByFileMeta_Id(5L)).thenReturn(Optional.empty());
+
+        //when
+        fileSearchService.index(fileMeta, "Docs");
+
+        //then: 경로는 "docs/ab.txt", latest 같은 S3 경로 조각은 포함되지 않음
+        ArgumentCaptor<FileSearchEntry> entryCaptor = ArgumentCaptor.forClass(FileSearchEntry.class);
+        verify(fileSearchEntryRepository).save(entryCaptor.capture());
+        assertEquals("docs/ab.txt", entryCaptor.getValue().getPathLower());
+        assertEquals("ab.txt", entryCaptor.getValue().getNameLower());
+
+        ArgumentCaptor<Iterable<FileSearchGram>> gramCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(fileSearchGramRepository).saveAll(gramCaptor.capture());
+        List<String> grams = StreamSupport.stream(gramCaptor.getValue().spliterator(), false)
+                .map(FileSearchGram::getGram)
+                .collect(Collectors.toList());
+        assertTrue(grams.containsAll(List.of("doc", "s/a", "b.t", "txt", "xt", "t")));
+        assertFalse(grams.contains("lat"));
+    }
+
+    // 경로가 그대로면 색인을 다시 쓰지 않음
+    @Test
+    void index_shouldSkipWhenPathUnchanged() {
+        //given
+        FileMeta fileMeta = new FileMeta();
+        fileMeta.setId(5L);
+        fileMeta.setOriginalName("a.txt");
+        FileSearchEntry entry = new FileSearchEntry();
+        entry.setPathLower("a.txt");
+        when(fileSearchEntryRepository.findByFileMeta_Id(5L)).thenReturn(Optional.of(entry));
+
+        //when
+        fileSearchService.index(fileMeta, "");
+
+        //then
+        verify(fileSearchEntryRepository, never()).save(any());
+        verifyNoInteractions(fileSearchGramRepository);
+    }
+
+    // 3글자 이상 검색어는 trigram 교집합, 짧은 검색어는 gram prefix로 조회
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_shouldChooseQueryByKeywordLength() {
+        //given
+        when(fileSearchEntryRepository.searchByGrams(eq(1L), anyCollection(), anyLong(), anyString(), any(Pageable.class)))
+                .thenReturn(List.of(3L));
+        when(fileSearchEntryRepository.searchByGramPrefix(eq(1L), anyString(), anyString(), any(Pageable.class)))
+                .thenReturn(List.of(4L));
+
+        //when
+        List<Long> longResult = fileSearchService.search(1L, "Repo_", false, 0, 20);
+        List<Long> shortResult = fileSearchService.search(1L, "Re", true, 0, 20);
+
+        //then
+        assertEquals(List.of(3L), longResult);
+        assertEquals(List.of(4L), shortResult);
+
+        ArgumentCaptor<Collection<String>> grams = ArgumentCaptor.forClass(Collection.class);
+        verify(fileSearchEntryRepository).searchByGrams(eq(1L), grams.capture(), eq(3L), eq("%repo!_%"), any(Pageable.class));
+        assertEquals(List.of("rep", "epo", "po_"), List.copyOf(grams.getValue()));
+        verify(fileSearchEntryRepository).searchByGramPrefix(eq(1L), eq("re%"), eq("re%"), any(Pageable.class));
+    }
+}
@@ -8,6 +8,9 @@ import com.capstone.xor.entity.User;
 import com.capstone.xor.repository.FileMetaRepository;
 import com.capstone.xor.repository.SyncFolderRepository;
 import com.capstone.xor.repository.UserRepository;
+import com.capstone.xor.util.ChunkStore;
+import com.capstone.xor.util.LatestFileCache;
+import com.capstone.xor.util.RestoreCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -42,6 +45,18 @@ class SyncFolderServiceTest {
     @Mock
     private AmazonS3 amazonS3;
 
+    @Mock
+    private RestoreCache restoreCache;
+
+    @Mock
+    private LatestFileCache latestFileCache;
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private ChunkStore chunkStore;
+
     @InjectMocks
     private SyncFolderService syncFolderService;
 
@@ -147,9 +162,13 @@ class SyncFolderServiceTest {
 
         // Then: 각 단계가 올바르게 호출되었는지 검증
 
-        // 1. S3에서 각 파일 삭제 검증
-        verify(amazonS3).deleteObject(eq(TEST_BUCKET_NAME), eq("users/1/10/file1.txt"));
-        verify(amazonS3).deleteObject(eq(TEST_BUCKET_NAME), eq("users/1/10/file2.txt"));
+        // 1. S3는 파일별이 아니라 폴더 prefix 한 번으로 삭제되는지 검증 (공유 청크는 폴더 prefix로 참조 해제)
+        verify(fileService, times(1)).deleteAllS3ObjectsWithPrefix("users/1/sync-folders/10/");
+        verify(chunkStore).release("users/1/sync-folders/10/");
+        verify(restoreCache).invalidate(101L);
+        verify(restoreCache).invalidate(102L);
+        verify(latestFileCache).invalidate("users/1/10/file1.txt");
+        verify(latestFileCache).invalidate("users/1/10/file2.txt");
 
         // 2. DB에서 파일 메타데이터 삭제 검증
         verify(fileMetaRepository).deleteAllBySyncFolderId(10L);
@@ -186,18 +205,17 @@ class SyncFolderServiceTest {
         when(syncFolderRepository.findById(10L)).thenReturn(Optional.of(mockSyncFolder));
         when(fileMetaRepository.findBySyncFolderId(10L)).thenReturn(mockFiles);
 
-        // S3 삭제 실패 시나리오 설정 (첫 번째 파일 삭제 시 예외 발생)
+        // S3 삭제 실패 시나리오 설정 (폴더 prefix 삭제 시 예외 발생)
         AmazonS3Exception s3Exception = new AmazonS3Exception("S3 삭제 실패");
-        doThrow(s3Exception).when(amazonS3).deleteObject(eq(TEST_BUCKET_NAME), eq("users/1/10/file1.txt"));
+        doThrow(s3Exception).when(fileService).deleteAllS3ObjectsWithPrefix("users/1/sync-folders/10/");
 
         // When: 서비스 계층 호출
         syncFolderService.deleteSyncFolder(1L, 10L);
 
         // Then: 예외가 발생해도 계속 진행되어 DB 삭제가 수행되는지 검증
 
-        // 1. S3에서 각 파일 삭제 시도 검증
-        verify(amazonS3).deleteObject(eq(TEST_BUCKET_NAME), eq("users/1/10/file1.txt")); // 실패
-        verify(amazonS3).deleteObject(eq(TEST_BUCKET_NAME), eq("users/1/10/file2.txt")); // 성공
+        // 1. S3 폴더 prefix 삭제 시도 검증 (실패)
+        verify(fileService).deleteAllS3ObjectsWithPrefix("users/1/sync-folders/10/");
 
         // 2. DB에서 파일 메타데이터 삭제 검증 (예외에도 불구하고 호출되어야 함)
         verify(fileMetaRepository).deleteAllBySyncFolderId(10L);
@@ -220,7 +238,8 @@ class SyncFolderServiceTest {
         assertEquals("존재하지 않는 폴더 입니다.", exception.getMessage());
 
         // S3 삭제나 DB 삭제가 호출되지 않아야 함
-        verify(amazonS3, never()).deleteObject(any(), any());
+        verify(fileService, never()).deleteAllS3ObjectsWithPrefix(any());
+        verify(chunkStore, never()).release(any());
         verify(fileMetaRepository, never()).deleteAllBySyncFolderId(any());
     }
 
@@ -245,7 +264,8 @@ class SyncFolderServiceTest {
         assertEquals("이 폴더는 해당 사용자의 싱크 폴더가 아닙니다.", exception.getMessage());
 
         // S3 삭제나 DB 삭제가 호출되지 않아야 함
-        verify(amazonS3, never()).deleteObject(any(), any());
+        verify(fileService, never()).deleteAllS3ObjectsWithPrefix(any());
+        verify(chunkStore, never()).release(any());
         verify(fileMetaRepository, never()).deleteAllBySyncFolderId(any());
     }
 }
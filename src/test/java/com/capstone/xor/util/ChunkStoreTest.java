@@ -0,0 +1,221 @@
+package com.capstone.xor.util;
+
+import com.capstone.xor.entity.ChunkManifest;
+import com.capstone.xor.repository.ChunkManifestRepository;
+import com.capstone.xor.repository.ChunkReferenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkStoreTest {
+
+    @Mock
+    private FileUtil fileUtil;
+
+    @Mock
+    private ChunkReferenceRepository chunkReferenceRepository;
+
+    @Mock
+    private ChunkManifestRepository chunkManifestRepository;
+
+    @Mock
+    private ChunkGarbageCollector chunkGarbageCollector;
+
+    @Mock
+    private ExecutorService s3TransferExecutor;
+
+    @InjectMocks
+    private ChunkStore chunkStore;
+
+    @TempDir
+    Path tempDir;
+
+    // FileUtil mock 뒤의 S3 대용 저장소 (키 -> 내용)와 키별 PUT 횟수
+    private final Map<String, byte[]> s3 = new HashMap<>();
+    private final Map<String, Integer> puts = new HashMap<>();
+    // 리포지토리 mock 뒤의 DB 대용 (청크 해시 -> 참조 수, 등록된 manifest)
+    private final Map<String, Long> refs = new HashMap<>();
+    private final Set<String> manifests = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(chunkStore, "minChunkSize", 256);
+        ReflectionTestUtils.setField(chunkStore, "avgChunkSize", 1024);
+        ReflectionTestUtils.setField(chunkStore, "maxChunkSize", 4096);
+        ReflectionTestUtils.setField(chunkStore, "transferConcurrency", 2);
+
+        // S3 전송 executor 대신 호출 스레드에서 바로 실행
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(s3TransferExecutor).execute(any(Runnable.class));
+
+        lenient().doAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            InputStream in = invocation.getArgument(1);
+            s3.put(key, in.readAllBytes());
+            puts.merge(key, 1, Integer::sum);
+            return null;
+        }).when(fileUtil).uploadToS3(anyString(), any(InputStream.class), anyLong(), anyString());
+        lenient().when(fileUtil.downloadBytesFromS3(anyString())).thenAnswer(invocation -> s3.get(invocation.<String>getArgument(0)));
+        lenient().when(fileUtil.openS3Stream(anyString()))
+                .thenAnswer(invocation -> new ByteArrayInputStream(s3.get(invocation.<String>getArgument(0))));
+
+        lenient().when(chunkReferenceRepository.increment(anyString()))
+                .thenAnswer(invocation -> refs.merge(invocation.getArgument(0), 1L, Long::sum) == 1 ? 1 : 2);
+        lenient().when(chunkReferenceRepository.findRefCount(anyString()))
+                .thenAnswer(invocation -> refs.get(invocation.<String>getArgument(0)));
+        lenient().when(chunkReferenceRepository.decrement(anyString(), anyLong())).thenAnswer(invocation -> {
+            refs.merge(invocation.getArgument(0), -invocation.<Long>getArgument(1), Long::sum);
+            return 1;
+        });
+        lenient().when(chunkManifestRepository.existsById(anyString()))
+                .thenAnswer(invocation -> manifests.contains(invocation.<String>getArgument(0)));
+        lenient().when(chunkManifestRepository.save(any(ChunkManifest.class))).thenAnswer(invocation -> {
+            manifests.add(invocation.<ChunkManifest>getArgument(0).getManifestKey());
+            return invocation.getArgument(0);
+        });
+        lenient().when(chunkManifestRepository.findKeysByPattern(anyString())).thenAnswer(invocation -> {
+            String prefix = invocation.<String>getArgument(0).replace("%", "");
+            return manifests.stream().filter(key -> key.startsWith(prefix)).toList();
+        });
+        lenient().doAnswer(invocation -> {
+            manifests.removeAll(invocation.<Collection<String>>getArgument(0));
+            return null;
+        }).when(chunkManifestRepository).deleteAllByIdInBatch(any());
+    }
+
+    // store 후 open으로 읽은 내용이 원본과 같은지 테스트
+    @Test
+    void storeThenOpen_shouldReturnOriginalBytes() throws IOException {
+        //given
+        byte[] data = randomBytes(100_000, 1);
+        File file = writeFile("a.bin", data);
+
+        //when
+        chunkStore.store("m/v1.manifest", file);
+        byte[] restored;
+        try (InputStream in = chunkStore.open("m/v1.manifest")) {
+            restored = in.readAllBytes();
+        }
+
+        //then
+        assertArrayEquals(data, restored);
+        List<ChunkStore.ChunkRef> manifest = chunkStore.readManifest("m/v1.manifest");
+        assertTrue(manifest.size() > 1);
+        assertEquals(data.length, manifest.stream().mapToLong(ChunkStore.ChunkRef::size).sum());
+        // 청크 업로드는 s3TransferExecutor에서 실행되고 청크마다 참조 1
+        verify(s3TransferExecutor, atLeast(manifest.size())).execute(any(Runnable.class));
+        manifest.forEach(ref -> assertEquals(1L, refs.get(ref.hash()), ref.hash()));
+        assertTrue(manifests.contains("m/v1.manifest"));
+    }
+
+    // 이미 있는 청크는 다시 PUT하지 않는지 테스트
+    @Test
+    void store_shouldNotPutExistingChunksAgain() throws IOException {
+        //given
+        byte[] data = randomBytes(100_000, 2);
+        File file = writeFile("a.bin", data);
+        long firstUploaded = chunkStore.store("m/v1.manifest", file);
+
+        //when: 같은 내용을 다른 manifest로 다시 저장
+        long secondUploaded = chunkStore.store("m/v2.manifest", file);
+
+        //then: 새 청크 없음, 각 청크는 한 번만 PUT, manifest는 둘 다 저장
+        assertEquals(data.length, firstUploaded);
+        assertEquals(0, secondUploaded);
+        puts.forEach((key, count) -> assertEquals(1, count, key));
+        assertTrue(s3.containsKey("m/v2.manifest"));
+        assertEquals(chunkStore.readManifest("m/v1.manifest"), chunkStore.readManifest("m/v2.manifest"));
+    }
+
+    // 일부만 바뀐 파일은 바뀐 구간의 청크만 업로드하는지 테스트
+    @Test
+    void store_shouldUploadOnlyChangedChunks() throws IOException {
+        //given
+        byte[] data = randomBytes(100_000, 3);
+        chunkStore.store("m/v1.manifest", writeFile("v1.bin", data));
+        byte[] changed = data.clone();
+        for (int i = 50_000; i < 50_010; i++) {
+            changed[i] ^= 0x5A;
+        }
+
+        //when
+        long uploaded = chunkStore.store("m/v2.manifest", writeFile("v2.bin", changed));
+
+        //then
+        assertTrue(uploaded > 0);
+        assertTrue(uploaded < changed.length / 5, "업로드 " + uploaded + " 바이트");
+        try (InputStream in = chunkStore.open("m/v2.manifest")) {
+            assertArrayEquals(changed, in.readAllBytes());
+        }
+        verify(fileUtil, never()).uploadToS3(anyString(), any(File.class), anyString());
+    }
+
+    // 파일 prefix의 참조를 해제하면 다른 파일과 공유하지 않는 청크만 참조 0이 되어 GC 후보로 넘어가는지 테스트
+    @Test
+    void release_shouldDropOnlyUnsharedChunks() throws IOException {
+        //given: a와 b가 앞부분 청크를 공유
+        byte[] data = randomBytes(100_000, 4);
+        byte[] changed = data.clone();
+        for (int i = 90_000; i < 90_010; i++) {
+            changed[i] ^= 0x5A;
+        }
+        chunkStore.store("users/1/sync-folders/1/a/.manifests/v1.manifest", writeFile("a.bin", data));
+        chunkStore.store("users/1/sync-folders/1/b/.manifests/v1.manifest", writeFile("b.bin", changed));
+        Set<String> aChunks = hashes("users/1/sync-folders/1/a/.manifests/v1.manifest");
+        Set<String> bChunks = hashes("users/1/sync-folders/1/b/.manifests/v1.manifest");
+
+        //when
+        chunkStore.release("users/1/sync-folders/1/a/");
+
+        //then: a 전용 청크는 0, 공유 청크는 b의 참조 1이 남고, a manifest 등록은 삭제됨
+        for (String hash : aChunks) {
+            assertEquals(bChunks.contains(hash) ? 1L : 0L, refs.get(hash), hash);
+        }
+        assertFalse(manifests.contains("users/1/sync-folders/1/a/.manifests/v1.manifest"));
+        assertTrue(manifests.contains("users/1/sync-folders/1/b/.manifests/v1.manifest"));
+        verify(chunkGarbageCollector).collect(argThat(candidates -> new HashSet<>(candidates).equals(aChunks)));
+    }
+
+    private Set<String> hashes(String manifestKey) {
+        Set<String> hashes = new HashSet<>();
+        chunkStore.readManifest(manifestKey).forEach(ref -> hashes.add(ref.hash()));
+        return hashes;
+    }
+
+    private File writeFile(String name, byte[] data) throws IOException {
+        return Files.write(tempDir.resolve(name), data).toFile();
+    }
+
+    private byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
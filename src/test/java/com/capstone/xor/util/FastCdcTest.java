@@ -0,0 +1,102 @@
+package com.capstone.xor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastCdcTest {
+
+    private static final int MIN = 256;
+    private static final int AVG = 1024;
+    private static final int MAX = 4096;
+
+    // 같은 입력은 인스턴스가 달라도 항상 같은 경계로 나뉘는지 테스트
+    @Test
+    void split_shouldProduceSameBoundariesForSameInput() throws IOException {
+        //given
+        byte[] data = randomBytes(200_000, 42);
+
+        //when
+        List<byte[]> first = split(new FastCdc(MIN, AVG, MAX), data);
+        List<byte[]> second = split(new FastCdc(MIN, AVG, MAX), data);
+
+        //then
+        assertEquals(sizes(first), sizes(second));
+        assertTrue(first.size() > 1);
+    }
+
+    // 청크 크기가 min~max 범위이고 이어 붙이면 원본과 같은지 테스트
+    @Test
+    void split_shouldKeepChunkSizesWithinBoundsAndCoverInput() throws IOException {
+        //given
+        byte[] data = randomBytes(200_000, 7);
+
+        //when
+        List<byte[]> chunks = split(new FastCdc(MIN, AVG, MAX), data);
+
+        //then: 마지막 청크만 min보다 작을 수 있음
+        ByteBuffer joined = ByteBuffer.allocate(data.length);
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            assertTrue(chunk.length <= MAX, "청크 " + i + " 크기 " + chunk.length);
+            if (i < chunks.size() - 1) {
+                assertTrue(chunk.length >= MIN, "청크 " + i + " 크기 " + chunk.length);
+            }
+            joined.put(chunk);
+        }
+        assertArrayEquals(data, joined.array());
+    }
+
+    // 앞부분에 바이트를 끼워 넣어도 이후 청크 경계는 유지되는지 테스트
+    @Test
+    void split_shouldKeepLaterChunksWhenBytesAreInsertedAtFront() throws IOException {
+        //given
+        byte[] data = randomBytes(200_000, 11);
+        byte[] shifted = new byte[data.length + 100];
+        System.arraycopy(randomBytes(100, 99), 0, shifted, 0, 100);
+        System.arraycopy(data, 0, shifted, 100, data.length);
+
+        //when
+        List<byte[]> original = split(new FastCdc(MIN, AVG, MAX), data);
+        List<byte[]> changed = split(new FastCdc(MIN, AVG, MAX), shifted);
+
+        //then: 처음 몇 개를 제외한 청크는 그대로 재사용됨
+        Set<ByteBuffer> changedChunks = new HashSet<>();
+        for (byte[] chunk : changed) {
+            changedChunks.add(ByteBuffer.wrap(chunk));
+        }
+        long shared = original.stream().filter(chunk -> changedChunks.contains(ByteBuffer.wrap(chunk))).count();
+        assertTrue(shared >= original.size() * 9 / 10, "공유 청크 " + shared + " / " + original.size());
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new FastCdc(0, AVG, MAX));
+        assertThrows(IllegalArgumentException.class, () -> new FastCdc(MIN, MAX, AVG));
+    }
+
+    private List<byte[]> split(FastCdc cdc, byte[] data) throws IOException {
+        List<byte[]> chunks = new ArrayList<>();
+        cdc.split(new ByteArrayInputStream(data), chunks::add);
+        return chunks;
+    }
+
+    private List<Integer> sizes(List<byte[]> chunks) {
+        return chunks.stream().map(chunk -> chunk.length).toList();
+    }
+
+    private byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,113 @@
+package com.capstone.xor.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LatestFileCacheTest {
+
+    @Mock
+    private FileUtil fileUtil;
+
+    @Mock
+    private ChunkStore chunkStore;
+
+    @InjectMocks
+    private LatestFileCache latestFileCache;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(latestFileCache, "cacheDir", tempDir.resolve("cache").toString());
+        ReflectionTestUtils.setField(latestFileCache, "maxEntries", 1);
+    }
+
+    // 빌려준 사본은 다른 키의 put으로 캐시에서 밀려나도 Handle을 닫을 때까지 남아 있는지 테스트
+    @Test
+    void handle_shouldKeepFileUntilClosedWhenEvicted() throws IOException {
+        //given
+        latestFileCache.put("a/latest/a.txt", writeFile("a.txt", "첫 번째"), sha256("첫 번째"));
+
+        //when
+        File pinned;
+        try (LatestFileCache.Handle handle = latestFileCache.getOrDownload("a/latest/a.txt", null, sha256("첫 번째"))) {
+            pinned = handle.file();
+            latestFileCache.put("b/latest/b.txt", writeFile("b.txt", "두 번째"), sha256("두 번째"));
+
+            //then: 밀려났지만 아직 사용 중
+            assertEquals("첫 번째", Files.readString(pinned.toPath()));
+        }
+        assertFalse(pinned.exists());
+        verifyNoInteractions(fileUtil);
+    }
+
+    // 같은 키로 새 사본을 넣어도 빌려준 이전 사본을 덮어쓰지 않는지 테스트
+    @Test
+    void put_shouldNotOverwritePinnedFile() throws IOException {
+        //given
+        latestFileCache.put("a/latest/a.txt", writeFile("v1.txt", "v1"), sha256("v1"));
+
+        try (LatestFileCache.Handle handle = latestFileCache.getOrDownload("a/latest/a.txt", null, sha256("v1"))) {
+            //when
+            latestFileCache.put("a/latest/a.txt", writeFile("v2.txt", "v2"), sha256("v2"));
+
+            //then
+            assertEquals("v1", Files.readString(handle.file().toPath()));
+        }
+        try (LatestFileCache.Handle handle = latestFileCache.getOrDownload("a/latest/a.txt", null, sha256("v2"))) {
+            assertEquals("v2", Files.readString(handle.file().toPath()));
+        }
+    }
+
+    // 내려받은 내용이 메타데이터 해시와 다르면 캐시하지 않는지 테스트
+    @Test
+    void getOrDownload_shouldNotCacheMismatchedDownload() throws IOException {
+        //given: S3 latest가 메타데이터와 다른 내용
+        when(fileUtil.downloadFromS3("a/latest/a.txt"))
+                .thenAnswer(invocation -> writeFile("download-" + System.nanoTime() + ".txt", "다른 내용"));
+
+        //when
+        File downloaded;
+        try (LatestFileCache.Handle handle = latestFileCache.getOrDownload("a/latest/a.txt", null, sha256("기대한 내용"))) {
+            downloaded = handle.file();
+            assertEquals("다른 내용", Files.readString(downloaded.toPath()));
+        }
+
+        //then: 닫으면 삭제되고, 다음 호출도 다시 내려받음
+        assertFalse(downloaded.exists());
+        latestFileCache.getOrDownload("a/latest/a.txt", null, sha256("기대한 내용")).close();
+        verify(fileUtil, times(2)).downloadFromS3("a/latest/a.txt");
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content, StandardCharsets.UTF_8).toFile();
+    }
+
+    private String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
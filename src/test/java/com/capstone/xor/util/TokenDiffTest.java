@@ -0,0 +1,89 @@
+package com.capstone.xor.util;
+
+import name.fraser.neil.plaintext.diff_match_patch;
+import name.fraser.neil.plaintext.diff_match_patch.Diff;
+import name.fraser.neil.plaintext.diff_match_patch.Patch;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDiffTest {
+
+    private final diff_match_patch dmp = new diff_match_patch();
+
+    // XML 모드: 태그 단위 diff로 만든 patch를 적용하면 새 문서가 되는지 테스트
+    @Test
+    void diff_xmlMode_shouldRoundTripThroughPatch() {
+        //given
+        StringBuilder prev = new StringBuilder("<?xml version=\"1.0\"?><w:document><w:body>");
+        StringBuilder next = new StringBuilder("<?xml version=\"1.0\"?><w:document><w:body>");
+        for (int i = 0; i < 500; i++) {
+            prev.append("<w:p><w:r><w:t>문단 ").append(i).append(" 내용</w:t></w:r></w:p>");
+            if (i == 100) {
+                next.append("<w:p w:rsidR=\"00AB\"><w:r><w:t>문단 ").append(i).append(" 수정된 내용</w:t></w:r></w:p>");
+            } else if (i != 300) {
+                next.append("<w:p><w:r><w:t>문단 ").append(i).append(" 내용</w:t></w:r></w:p>");
+            }
+        }
+        prev.append("</w:body></w:document>");
+        next.append("<w:p><w:r><w:t>추가 문단</w:t></w:r></w:p></w:body></w:document>");
+
+        //when & then
+        assertRoundTrip(prev.toString(), next.toString(), true);
+    }
+
+    // 줄 모드: 줄 단위 diff로 만든 patch를 적용하면 새 텍스트가 되는지 테스트
+    @Test
+    void diff_lineMode_shouldRoundTripThroughPatch() {
+        //given
+        StringBuilder prev = new StringBuilder();
+        StringBuilder next = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            prev.append("line ").append(i).append('\n');
+            if (i % 500 == 7) {
+                next.append("changed line ").append(i).append('\n');
+            } else if (i != 1234) {
+                next.append("line ").append(i).append('\n');
+            }
+        }
+        next.append("마지막 줄 (개행 없음)");
+
+        //when & then
+        assertRoundTrip(prev.toString(), next.toString(), false);
+    }
+
+    // 서로 다른 토큰이 MAX_TOKENS_PREV(40000)를 넘어 뒷부분이 한 토큰으로 묶여도 결과가 같은지 테스트
+    @Test
+    void diff_overPrevTokenCap_shouldRoundTripThroughPatch() {
+        //given
+        StringBuilder prev = new StringBuilder();
+        StringBuilder next = new StringBuilder();
+        for (int i = 0; i < 45_000; i++) {
+            prev.append("row ").append(i).append('\n');
+            if (i == 10 || i == 42_000) {
+                next.append("row ").append(i).append(" edited\n");
+            } else {
+                next.append("row ").append(i).append('\n');
+            }
+        }
+
+        //when & then
+        assertRoundTrip(prev.toString(), next.toString(), false);
+    }
+
+    private void assertRoundTrip(String prev, String next, boolean xml) {
+        LinkedList<Diff> diffs = TokenDiff.diff(dmp, prev, next, xml);
+        // 저장 형식(patch 텍스트)을 거쳐도 같은 patch가 되도록 직렬화 후 다시 파싱
+        LinkedList<Patch> patches = dmp.patch_fromText(dmp.patch_toText(dmp.patch_make(prev, diffs)));
+
+        Object[] results = dmp.patch_apply(patches, prev);
+
+        assertEquals(next, results[0]);
+        boolean[] applied = (boolean[]) results[1];
+        for (int i = 0; i < applied.length; i++) {
+            assertTrue(applied[i], "hunk " + i + " 적용 실패");
+        }
+    }
+}